@@ -0,0 +1,49 @@
+package com.akgarg.us.apigw.actuator;
+
+import com.akgarg.us.apigw.metrics.HeavyHitters;
+import com.akgarg.us.apigw.metrics.HeavyHittersTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the most frequent client IPs, user ids and rate limited clients tracked by {@link HeavyHittersTracker}
+ * at {@code /admin/management/heavyhitters}. The lists contain personal data and are only served to admin users
+ * whose auth token has been validated (see {@code AdminEndpointConfig}).
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+
+    private final HeavyHittersTracker heavyHittersTracker;
+
+    @ReadOperation
+    public Map<String, List<HeavyHitters.HeavyHitter>> heavyHitters() {
+        final var result = new LinkedHashMap<String, List<HeavyHitters.HeavyHitter>>();
+
+        for (final var category : HeavyHittersTracker.Category.values()) {
+            result.put(category.getValue(), heavyHittersTracker.topK(category));
+        }
+
+        return result;
+    }
+
+    @ReadOperation
+    public List<HeavyHitters.HeavyHitter> heavyHitters(@Selector final String category) {
+        for (final var value : HeavyHittersTracker.Category.values()) {
+            if (value.getValue().equals(category)) {
+                return heavyHittersTracker.topK(value);
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.akgarg.us.apigw.actuator;
+
+import com.akgarg.us.apigw.loadbalancer.OutlierDetector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Exposes the instances ejected or being probed by the {@link OutlierDetector} at {@code /admin/management/outliers}.
+ * The list contains backend addresses and is only served to admin users (see {@code AdminEndpointConfig}).
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "outliers")
+public class OutliersEndpoint {
+
+    private final OutlierDetector outlierDetector;
+
+    @ReadOperation
+    public List<OutlierDetector.UnhealthyInstance> outliers() {
+        return outlierDetector.getUnhealthyInstances();
+    }
+
+}
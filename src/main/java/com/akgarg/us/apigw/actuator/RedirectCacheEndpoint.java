@@ -0,0 +1,48 @@
+package com.akgarg.us.apigw.actuator;
+
+import com.akgarg.us.apigw.cache.RedirectCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Purges the {@link RedirectCache} at {@code /admin/management/redirectcache}: {@code DELETE} without parameters
+ * purges every entry, {@code DELETE ?path=/abc123} purges a single short URL.
+ * <p>
+ * Purging is an admin-only operation (see {@code AdminEndpointConfig}): the caller's auth token is validated before
+ * the admin role of the {@code X-USER-ID} user is checked.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "redirectcache")
+public class RedirectCacheEndpoint {
+
+    private final RedirectCache redirectCache;
+
+    @ReadOperation
+    public Map<String, Object> redirectCache() {
+        return Map.of(
+                "enabled", redirectCache.isEnabled(),
+                "size", redirectCache.size()
+        );
+    }
+
+    @DeleteOperation
+    public void purge(@Nullable final String path) {
+        if (path == null || path.isBlank()) {
+            log.info("Purging redirect cache");
+            redirectCache.invalidateAll();
+        } else {
+            log.info("Purging redirect cache entry: {}", path);
+            redirectCache.invalidate(path);
+        }
+    }
+
+}
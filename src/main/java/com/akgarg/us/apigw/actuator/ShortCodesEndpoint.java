@@ -0,0 +1,100 @@
+package com.akgarg.us.apigw.actuator;
+
+import com.akgarg.us.apigw.cache.KnownShortCodes;
+import com.akgarg.us.apigw.cache.NotFoundCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages the {@link KnownShortCodes} filter and the {@link NotFoundCache} at {@code /admin/management/shortcodes}:
+ * <ul>
+ * <li>{@code POST /add} with {@code {"codes": [...]}} adds newly created codes</li>
+ * <li>{@code POST /replace} with {@code {"codes": [...]}} replaces the whole set</li>
+ * <li>{@code POST /reload} loads the snapshot file again</li>
+ * <li>{@code DELETE} purges the negative cache, {@code DELETE ?path=/abc123} a single path</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "shortcodes")
+public class ShortCodesEndpoint {
+
+    private final KnownShortCodes knownShortCodes;
+    private final NotFoundCache notFoundCache;
+
+    @ReadOperation
+    public Map<String, Object> shortCodes() {
+        final var result = new LinkedHashMap<String, Object>();
+        result.put("knownCodesEnabled", knownShortCodes.isEnabled());
+        result.put("knownCodesLoaded", knownShortCodes.isLoaded());
+        result.put("knownCodes", knownShortCodes.size());
+        result.put("memoryBytes", knownShortCodes.memoryBytes());
+        result.put("falsePositiveRate", knownShortCodes.expectedFalsePositiveRate());
+        result.put("configuredFalsePositiveRate", knownShortCodes.configuredFalsePositiveRate());
+        result.put("notFoundCacheEnabled", notFoundCache.isEnabled());
+        result.put("notFoundCacheSize", notFoundCache.size());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Selector final String action, @Nullable final List<String> codes) {
+        switch (action) {
+            case "add" -> {
+                requireCodes(action, codes);
+
+                if (!knownShortCodes.add(codes)) {
+                    throw new InvalidEndpointRequestException("Known short codes are not loaded yet", "Set not loaded");
+                }
+
+                codes.forEach(code -> notFoundCache.invalidate("/" + code.trim()));
+                log.info("Added {} known short code(s)", codes.size());
+            }
+            case "replace" -> {
+                requireCodes(action, codes);
+                knownShortCodes.replace(codes);
+                notFoundCache.invalidateAll();
+            }
+            case "reload" -> {
+                if (!knownShortCodes.reloadSnapshot()) {
+                    throw new InvalidEndpointRequestException("Known short codes snapshot could not be loaded", "Snapshot not loaded");
+                }
+
+                notFoundCache.invalidateAll();
+            }
+            default -> throw new InvalidEndpointRequestException("Unknown action: " + action, "Unknown action");
+        }
+
+        return shortCodes();
+    }
+
+    @DeleteOperation
+    public void purge(@Nullable final String path) {
+        if (path == null || path.isBlank()) {
+            log.info("Purging not found cache");
+            notFoundCache.invalidateAll();
+        } else {
+            log.info("Purging not found cache entry: {}", path);
+            notFoundCache.invalidate(path);
+        }
+    }
+
+    private static void requireCodes(final String action, final List<String> codes) {
+        if (codes == null) {
+            throw new InvalidEndpointRequestException("Action " + action + " requires codes", "Missing codes");
+        }
+    }
+
+}
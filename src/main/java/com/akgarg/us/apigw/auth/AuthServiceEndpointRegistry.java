@@ -0,0 +1,123 @@
+package com.akgarg.us.apigw.auth;
+
+import com.akgarg.client.authclient.common.AuthServiceEndpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code AuthServiceEndpointRegistry} holds an immutable snapshot of the auth service endpoints registered in
+ * service discovery.
+ * <p>
+ * The snapshot is refreshed in the background whenever the discovery client publishes a {@link HeartbeatEvent}
+ * (Consul catalog watch), once the application is ready and every {@code auth.service.discovery-refresh-seconds}
+ * (default 30), so a missed or disabled catalog watch cannot leave it stale. The request path only reads a volatile
+ * reference.
+ * If a refresh fails (e.g. Consul is unreachable) the last good snapshot keeps being served.
+ */
+@Slf4j
+@Component
+public class AuthServiceEndpointRegistry {
+
+    private static final String AUTH_SERVICE_NAME = "urlshortener-auth-service";
+
+    private final DiscoveryClient discoveryClient;
+    private final Counter refreshFailureCounter;
+    private final long refreshIntervalSeconds;
+    private final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile List<AuthServiceEndpoint> endpoints = List.of();
+    private volatile long lastRefreshTimeMillis;
+    private volatile boolean refreshAttempted;
+
+    public AuthServiceEndpointRegistry(final DiscoveryClient discoveryClient,
+                                       final Environment environment,
+                                       final MeterRegistry meterRegistry) {
+        this.discoveryClient = discoveryClient;
+        this.refreshIntervalSeconds = Long.parseLong(environment.getProperty("auth.service.discovery-refresh-seconds", "30"));
+        this.refreshFailureCounter = Counter.builder("urlshortener_api_gateway_auth_endpoints_refresh_failures_total")
+                .description("Number of failed refreshes of the auth service endpoint snapshot")
+                .register(meterRegistry);
+        Gauge.builder("urlshortener_api_gateway_auth_endpoints_snapshot_age_seconds", this, AuthServiceEndpointRegistry::getSnapshotAgeSeconds)
+                .description("Seconds since the auth service endpoint snapshot was last refreshed")
+                .register(meterRegistry);
+        Gauge.builder("urlshortener_api_gateway_auth_endpoints_snapshot_size", this, registry -> registry.endpoints.size())
+                .description("Number of auth service endpoints in the current snapshot")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void startRefreshTask() {
+        refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the current snapshot of auth service endpoints.
+     * <p>
+     * If no refresh has been attempted yet the endpoints are fetched synchronously once, so callers must not
+     * invoke this method on an event loop thread.
+     *
+     * @return immutable list of auth service endpoints
+     */
+    public List<AuthServiceEndpoint> getEndpoints() {
+        if (!refreshAttempted) {
+            refresh();
+        }
+        return endpoints;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, HeartbeatEvent.class})
+    public void onDiscoveryEvent() {
+        refresh();
+    }
+
+    /**
+     * Fetches auth service instances from the discovery client and publishes them as the new snapshot.
+     * On failure, the previous snapshot is retained and the failure counter is incremented.
+     */
+    synchronized void refresh() {
+        try {
+            final var authServiceInstances = discoveryClient.getInstances(AUTH_SERVICE_NAME);
+
+            endpoints = authServiceInstances.stream()
+                    .map(instance -> {
+                        final var instanceUri = instance.getUri();
+                        return new AuthServiceEndpoint(instanceUri.getScheme(), instanceUri.getHost(), instanceUri.getPort());
+                    })
+                    .toList();
+            lastRefreshTimeMillis = System.currentTimeMillis();
+
+            log.debug("Refreshed auth service endpoints: {}", endpoints);
+        } catch (Exception e) {
+            refreshFailureCounter.increment();
+            log.warn("Failed to refresh auth service endpoints, serving last known {} endpoint(s): {}", endpoints.size(), e.getMessage());
+        } finally {
+            refreshAttempted = true;
+        }
+    }
+
+    @PreDestroy
+    public void stopRefreshTask() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private double getSnapshotAgeSeconds() {
+        final var lastRefresh = lastRefreshTimeMillis;
+        return lastRefresh == 0 ? Double.NaN : (System.currentTimeMillis() - lastRefresh) / 1000.0;
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.akgarg.us.apigw.auth;
+
+import com.akgarg.client.authclient.AuthClient;
+import com.akgarg.client.authclient.common.AuthServiceEndpoint;
+import com.akgarg.client.authclient.common.ValidateTokenRequest;
+import com.akgarg.us.apigw.exception.ApiGatewayException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * {@code AuthTokenValidator} exposes the blocking {@link AuthClient} as a reactive validation path.
+ * <p>
+ * {@link AuthClient#validate(ValidateTokenRequest)} performs a Redis lookup (and possibly an HTTP call to the
+ * auth service), so it is executed on a dedicated bounded scheduler instead of the Reactor Netty event loop.
+ * Concurrent validations of the same (user id, token) pair are collapsed into a single in-flight call whose
+ * result is shared by all subscribers.
+ * <p>
+ * Validation results are kept in a bounded in-process L1 cache keyed by the same hash. Valid tokens are cached
+ * for {@code auth.client.cache.positive-ttl-seconds} and invalid tokens for the (shorter)
+ * {@code auth.client.cache.negative-ttl-seconds}, so a revoked token stops being accepted within the positive TTL.
+ * Failed validations are never cached.
+ */
+@Slf4j
+@Component
+public class AuthTokenValidator {
+
+    private static final String CACHE_NAME = "auth_token_validation";
+    private static final String AUTH_COOKIE_NAME = "auth_token";
+
+    private final AuthClient authClient;
+    private final Scheduler authTokenValidationScheduler;
+
+    /**
+     * L1 cache of validation results keyed by the hash of (user id, token).
+     */
+    private final Cache<String, Boolean> validationCache;
+
+    /**
+     * In-flight validations keyed by the hash of (user id, token). Entries are removed as soon as the
+     * underlying validation terminates, so the map only ever holds concurrently running validations.
+     */
+    private final Map<String, Mono<Boolean>> inFlightValidations = new ConcurrentHashMap<>();
+
+    public AuthTokenValidator(final AuthClient authClient,
+                              @Qualifier("authTokenValidationScheduler") final Scheduler authTokenValidationScheduler,
+                              final Environment environment,
+                              final MeterRegistry meterRegistry) {
+        this.authClient = authClient;
+        this.authTokenValidationScheduler = authTokenValidationScheduler;
+        this.validationCache = createValidationCache(environment);
+        CaffeineCacheMetrics.monitor(meterRegistry, validationCache, CACHE_NAME);
+    }
+
+    /**
+     * Validates the auth token of the given user without blocking the calling thread.
+     *
+     * @param userId               the id of the user the token belongs to
+     * @param token                the auth token to validate
+     * @param authServiceEndpoints supplier of auth service endpoints, invoked on the validation scheduler
+     * @return a {@link Mono} emitting {@code true} if the token is valid, otherwise {@code false}
+     */
+    public Mono<Boolean> validate(final String userId,
+                                  final String token,
+                                  final Supplier<List<AuthServiceEndpoint>> authServiceEndpoints) {
+        final var key = validationKey(userId, token);
+        final var cachedResult = validationCache.getIfPresent(key);
+
+        if (cachedResult != null) {
+            return Mono.just(cachedResult);
+        }
+
+        return inFlightValidations.computeIfAbsent(key, k -> Mono.fromCallable(() -> authClient.validate(
+                        new ValidateTokenRequest(userId, token, authServiceEndpoints.get())
+                ))
+                .subscribeOn(authTokenValidationScheduler)
+                .doOnNext(valid -> validationCache.put(k, valid))
+                .doOnError(e -> log.error("Token validation failed for user {}: {}", userId, e.getMessage()))
+                .doFinally(signalType -> inFlightValidations.remove(k))
+                .cache());
+    }
+
+    /**
+     * Extracts the auth token from the {@code auth_token} cookie of the request.
+     *
+     * @return the token, or empty if the cookie is missing, blank or sent more than once
+     */
+    public static Optional<String> extractAuthToken(final ServerHttpRequest request) {
+        final var cookies = request.getCookies().get(AUTH_COOKIE_NAME);
+
+        if (cookies == null || cookies.size() != 1) {
+            log.debug("Auth token cookie is unavailable or has multiple values");
+            return Optional.empty();
+        }
+
+        final var authCookie = cookies.getFirst().getValue();
+
+        if (authCookie.isBlank()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(authCookie);
+    }
+
+    private static Cache<String, Boolean> createValidationCache(final Environment environment) {
+        final var maxSize = Long.parseLong(environment.getProperty("auth.client.cache.max-size", "100000"));
+        final var positiveTtl = Duration.ofSeconds(Long.parseLong(environment.getProperty("auth.client.cache.positive-ttl-seconds", "30")));
+        final var negativeTtl = Duration.ofSeconds(Long.parseLong(environment.getProperty("auth.client.cache.negative-ttl-seconds", "5")));
+
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ValidationResultExpiry(positiveTtl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Creates a fixed length key for (user id, token) so that raw tokens are never used as map keys.
+     */
+    static String validationKey(final String userId, final String token) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(userId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new ApiGatewayException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Expires valid tokens after the positive TTL and invalid tokens after the negative TTL, measured from the
+     * time the result was written. Reads do not extend the lifetime of an entry.
+     */
+    private record ValidationResultExpiry(long positiveTtlNanos, long negativeTtlNanos) implements Expiry<String, Boolean> {
+
+        @Override
+        public long expireAfterCreate(@Nonnull final String key, @Nonnull final Boolean valid, final long currentTime) {
+            return Boolean.TRUE.equals(valid) ? positiveTtlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(@Nonnull final String key,
+                                      @Nonnull final Boolean valid,
+                                      final long currentTime,
+                                      final long currentDuration) {
+            return expireAfterCreate(key, valid, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@Nonnull final String key,
+                                    @Nonnull final Boolean valid,
+                                    final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.akgarg.us.apigw.cache;
+
+import com.akgarg.us.apigw.utils.HashUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free Bloom filter of strings, sized for an expected number of insertions and false-positive rate.
+ * <p>
+ * The bit indexes are derived from one 64-bit hash with double hashing ({@code h1 + i * h2}). Bits are set with
+ * compare-and-set, so concurrent inserts and lookups never block each other.
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final AtomicLong setBits = new AtomicLong();
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(final long bitSize, final int hashFunctions) {
+        if (bitSize / Long.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large: " + bitSize + " bits");
+        }
+
+        this.words = new AtomicLongArray((int) (bitSize / Long.SIZE));
+        this.bitSize = bitSize;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Creates a Bloom filter holding {@code expectedInsertions} strings with the given false-positive rate.
+     */
+    static BloomFilter create(final long expectedInsertions, final double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+
+        final var n = Math.max(1, expectedInsertions);
+        final var bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        final var roundedBits = Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+        final var hashFunctions = (int) Math.max(1, Math.round((double) roundedBits / n * LN2));
+
+        return new BloomFilter(roundedBits, hashFunctions);
+    }
+
+    void put(final String value) {
+        final var hash = HashUtils.hash64(value, 0);
+        final var h2 = HashUtils.mix(hash + 0x9E3779B97F4A7C15L);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit(index(hash + i * h2));
+        }
+
+        insertions.incrementAndGet();
+    }
+
+    boolean mightContain(final String value) {
+        final var hash = HashUtils.hash64(value, 0);
+        final var h2 = HashUtils.mix(hash + 0x9E3779B97F4A7C15L);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            final var bit = index(hash + i * h2);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    long bitSize() {
+        return bitSize;
+    }
+
+    int hashFunctions() {
+        return hashFunctions;
+    }
+
+    long memoryBytes() {
+        return bitSize / Byte.SIZE;
+    }
+
+    long insertions() {
+        return insertions.get();
+    }
+
+    /**
+     * Returns the false-positive rate implied by the fraction of bits currently set.
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow((double) setBits.get() / bitSize, hashFunctions);
+    }
+
+    private long index(final long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % bitSize;
+    }
+
+    private void setBit(final long bit) {
+        final var wordIndex = (int) (bit >>> 6);
+        final var mask = 1L << bit;
+
+        while (true) {
+            final var word = words.get(wordIndex);
+
+            if ((word & mask) != 0) {
+                return;
+            }
+
+            if (words.compareAndSet(wordIndex, word, word | mask)) {
+                setBits.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.akgarg.us.apigw.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * {@code CacheInvalidationChannel} broadcasts cache invalidations to every gateway node, so a change made through
+ * one node evicts the stale entries of all of them.
+ * <p>
+ * Implementations deliver every published invalidation to the listeners of the publishing node as well, at least
+ * once, before or independently of the remote delivery. Listeners must therefore be idempotent.
+ */
+public interface CacheInvalidationChannel {
+
+    /**
+     * Publishes an invalidation to all gateway nodes, including this one.
+     */
+    void publish(CacheInvalidation invalidation);
+
+    /**
+     * Registers a listener for the invalidations published by any gateway node.
+     */
+    void subscribe(Consumer<CacheInvalidation> listener);
+
+    /**
+     * Invalidates the keys of the named cache starting with {@code keyPrefix}.
+     */
+    record CacheInvalidation(String cacheName, String keyPrefix) {
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.akgarg.us.apigw.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code KnownShortCodes} is a probabilistic set of the short codes known to the URL shortener service, used to
+ * answer lookups of codes that certainly do not exist without calling the service.
+ * <p>
+ * The codes are kept in a {@link BloomFilter} sized by {@code known-codes.expected-codes} and
+ * {@code known-codes.false-positive-rate}, so a lookup may pass for an unknown code but never fails for a code in
+ * the set. Until a set is loaded every code is reported as possibly existing.
+ * <p>
+ * The set is loaded from {@code known-codes.snapshot-file} (one code per line) and the file is polled every
+ * {@code known-codes.snapshot-refresh-seconds}: lines appended since the last poll are added incrementally, while a
+ * replaced or truncated file is loaded into a new filter that is swapped in once complete. Codes can also be added
+ * or replaced at runtime through {@code ShortCodesEndpoint}. The set must contain every code, otherwise missing
+ * codes are answered with {@code 404}, so the filter is disabled unless {@code known-codes.enabled=true}.
+ */
+@Slf4j
+@Component
+public class KnownShortCodes {
+
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final boolean enabled;
+    private final long expectedCodes;
+    private final double falsePositiveRate;
+    private final Path snapshotFile;
+    private final long snapshotRefreshSeconds;
+    private final Counter snapshotFailureCounter;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * Identity of the snapshot file and the number of bytes of it already added, guarded by {@code this}.
+     */
+    private Object snapshotFileKey;
+    private long snapshotOffset;
+
+    public KnownShortCodes(final Environment environment, final MeterRegistry meterRegistry) {
+        this.enabled = Boolean.parseBoolean(environment.getProperty("known-codes.enabled", "false"));
+        this.expectedCodes = Long.parseLong(environment.getProperty("known-codes.expected-codes", "10000000"));
+        this.falsePositiveRate = Double.parseDouble(environment.getProperty("known-codes.false-positive-rate", "0.01"));
+        final var snapshotFilePath = environment.getProperty("known-codes.snapshot-file", "");
+        this.snapshotFile = snapshotFilePath.isBlank() ? null : Path.of(snapshotFilePath);
+        this.snapshotRefreshSeconds = Long.parseLong(environment.getProperty("known-codes.snapshot-refresh-seconds", "60"));
+
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("known-codes.false-positive-rate must be between 0 and 1: " + falsePositiveRate);
+        }
+
+        this.snapshotFailureCounter = Counter.builder("urlshortener_api_gateway_known_codes_snapshot_failures_total")
+                .description("Number of failed loads of the known short codes snapshot file")
+                .register(meterRegistry);
+        Gauge.builder("urlshortener_api_gateway_known_codes_size", this, KnownShortCodes::size)
+                .description("Number of short codes added to the known short codes filter")
+                .register(meterRegistry);
+        Gauge.builder("urlshortener_api_gateway_known_codes_memory_bytes", this, KnownShortCodes::memoryBytes)
+                .description("Memory used by the bits of the known short codes filter")
+                .register(meterRegistry);
+        Gauge.builder("urlshortener_api_gateway_known_codes_false_positive_rate", this, KnownShortCodes::expectedFalsePositiveRate)
+                .description("Estimated false-positive rate of the known short codes filter")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void startSnapshotTask() {
+        if (enabled && snapshotFile != null) {
+            snapshotExecutor.scheduleWithFixedDelay(this::refreshSnapshot, 0, snapshotRefreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoaded() {
+        return filter != null;
+    }
+
+    /**
+     * Returns {@code false} only if the code is certainly not a known short code.
+     */
+    public boolean mightExist(final String code) {
+        final var currentFilter = filter;
+        return !enabled || currentFilter == null || currentFilter.mightContain(code);
+    }
+
+    /**
+     * Adds codes to the loaded set. Synchronized with {@link #replace(Collection)} and snapshot loads, so codes are
+     * never added to a filter that is being swapped out.
+     *
+     * @return {@code false} if no set is loaded yet, in which case nothing is added
+     */
+    public synchronized boolean add(final Collection<String> codes) {
+        final var currentFilter = filter;
+
+        if (currentFilter == null) {
+            return false;
+        }
+
+        codes.forEach(code -> addCode(code, currentFilter));
+        return true;
+    }
+
+    /**
+     * Replaces the set with the given codes.
+     */
+    public synchronized void replace(final Collection<String> codes) {
+        final var newFilter = BloomFilter.create(expectedCodes, falsePositiveRate);
+        codes.forEach(code -> addCode(code, newFilter));
+        filter = newFilter;
+        log.info("Replaced known short codes with {} code(s)", newFilter.insertions());
+    }
+
+    /**
+     * Loads the whole snapshot file into a new set.
+     *
+     * @return {@code false} if no snapshot file is configured or it could not be read
+     */
+    public synchronized boolean reloadSnapshot() {
+        snapshotFileKey = null;
+        snapshotOffset = 0;
+        return refreshSnapshot();
+    }
+
+    synchronized boolean refreshSnapshot() {
+        if (snapshotFile == null) {
+            return false;
+        }
+
+        try {
+            final var attributes = Files.readAttributes(snapshotFile, BasicFileAttributes.class);
+            final var fileKey = Objects.requireNonNullElse(attributes.fileKey(), snapshotFile);
+            final var currentFilter = filter;
+            final var incremental = currentFilter != null && fileKey.equals(snapshotFileKey) && attributes.size() >= snapshotOffset;
+
+            if (incremental && attributes.size() == snapshotOffset) {
+                return true;
+            }
+
+            final var target = incremental ? currentFilter : BloomFilter.create(expectedCodes, falsePositiveRate);
+            final var added = target.insertions();
+            snapshotOffset = readSnapshot(incremental ? snapshotOffset : 0, target);
+            snapshotFileKey = fileKey;
+            filter = target;
+
+            log.info("{} known short codes snapshot {}: {} code(s) added",
+                    incremental ? "Refreshed" : "Loaded", snapshotFile, target.insertions() - added);
+            return true;
+        } catch (Exception e) {
+            snapshotFailureCounter.increment();
+            log.warn("Failed to load known short codes snapshot {}: {}", snapshotFile, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Adds the complete lines of the snapshot file from {@code offset} to the filter.
+     *
+     * @return the offset after the last complete line, so a line being appended is read on the next refresh
+     */
+    private long readSnapshot(final long offset, final BloomFilter target) throws IOException {
+        try (final var channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            channel.position(offset);
+            final var input = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            final var line = new StringBuilder();
+            var position = offset;
+            var lineEnd = offset;
+            int b;
+
+            while ((b = input.read()) != -1) {
+                position++;
+
+                if (b == '\n') {
+                    addCode(line.toString(), target);
+                    line.setLength(0);
+                    lineEnd = position;
+                } else if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+
+            return lineEnd;
+        }
+    }
+
+    private static void addCode(final String code, final BloomFilter target) {
+        final var trimmed = code.trim();
+
+        if (!trimmed.isEmpty() && trimmed.charAt(0) != '#') {
+            target.put(trimmed);
+        }
+    }
+
+    public long size() {
+        final var currentFilter = filter;
+        return currentFilter == null ? 0 : currentFilter.insertions();
+    }
+
+    public long memoryBytes() {
+        final var currentFilter = filter;
+        return currentFilter == null ? 0 : currentFilter.memoryBytes();
+    }
+
+    public double expectedFalsePositiveRate() {
+        final var currentFilter = filter;
+        return currentFilter == null ? 0 : currentFilter.expectedFalsePositiveRate();
+    }
+
+    public double configuredFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    @PreDestroy
+    public void stopSnapshotTask() {
+        snapshotExecutor.shutdownNow();
+    }
+
+}
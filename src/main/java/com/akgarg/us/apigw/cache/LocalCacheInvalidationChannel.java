@@ -0,0 +1,38 @@
+package com.akgarg.us.apigw.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link CacheInvalidationChannel} for a single gateway node, used in development and tests. Invalidations
+ * are delivered synchronously on the publishing thread.
+ */
+@Slf4j
+@Component
+@Profile({"default", "dev"})
+public class LocalCacheInvalidationChannel implements CacheInvalidationChannel {
+
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(final CacheInvalidation invalidation) {
+        for (final var listener : listeners) {
+            try {
+                listener.accept(invalidation);
+            } catch (Exception e) {
+                log.error("Failed to apply cache invalidation {}", invalidation, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(final Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+}
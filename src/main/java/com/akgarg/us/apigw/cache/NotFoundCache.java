@@ -0,0 +1,62 @@
+package com.akgarg.us.apigw.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@code NotFoundCache} remembers the paths of the public short URL route that were recently answered with
+ * {@code 404} by the URL shortener service, so that repeated lookups of unknown short codes (typically scanners)
+ * are answered by the gateway.
+ * <p>
+ * Entries expire after {@code not-found-cache.ttl-seconds}, which bounds how long a newly created short code can
+ * keep being reported as missing.
+ */
+@Component
+public class NotFoundCache {
+
+    private static final String CACHE_NAME = "not_found_cache";
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> cache;
+
+    public NotFoundCache(final Environment environment, final MeterRegistry meterRegistry) {
+        this.enabled = Boolean.parseBoolean(environment.getProperty("not-found-cache.enabled", "true"));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Long.parseLong(environment.getProperty("not-found-cache.max-size", "100000")))
+                .expireAfterWrite(Duration.ofSeconds(Long.parseLong(environment.getProperty("not-found-cache.ttl-seconds", "10"))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean contains(final String path) {
+        return cache.getIfPresent(path) != null;
+    }
+
+    public void put(final String path) {
+        cache.put(path, Boolean.TRUE);
+    }
+
+    public void invalidate(final String path) {
+        cache.invalidate(path);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+}
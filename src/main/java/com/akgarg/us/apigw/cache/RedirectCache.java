@@ -0,0 +1,202 @@
+package com.akgarg.us.apigw.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@code RedirectCache} keeps the redirect responses of the public short URL route, keyed by request path and
+ * query, so that repeated visits of the same short code are answered by the gateway.
+ * <p>
+ * Only redirects (301, 302, 307, 308) without cookies are stored, and only their status, {@code Location} and cache
+ * headers. The lifetime of an entry is taken from the {@code Cache-Control} header of the response
+ * ({@code s-maxage}, then {@code max-age}), capped at {@code redirect-cache.max-ttl-seconds}. Responses marked
+ * {@code no-store}, {@code no-cache} or {@code private} are not stored. Permanent redirects (301, 308) without an
+ * explicit lifetime are stored for {@code redirect-cache.default-ttl-seconds} (0 disables this); temporary redirects
+ * without one are never stored, as a shared cache must not assume they stay valid (RFC 9111, section 4.2.2).
+ */
+@Slf4j
+@Component
+public class RedirectCache {
+
+    private static final String CACHE_NAME = "redirect_cache";
+
+    private static final Set<Integer> CACHEABLE_STATUSES = Set.of(
+            HttpStatus.MOVED_PERMANENTLY.value(),
+            HttpStatus.FOUND.value(),
+            HttpStatus.TEMPORARY_REDIRECT.value(),
+            HttpStatus.PERMANENT_REDIRECT.value()
+    );
+
+    /**
+     * Redirects a shared cache may store for a heuristic lifetime when the response does not carry one.
+     */
+    private static final Set<Integer> HEURISTICALLY_CACHEABLE_STATUSES = Set.of(
+            HttpStatus.MOVED_PERMANENTLY.value(),
+            HttpStatus.PERMANENT_REDIRECT.value()
+    );
+
+    private static final List<String> CACHED_HEADERS = List.of(
+            HttpHeaders.LOCATION,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.EXPIRES
+    );
+
+    private final boolean enabled;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final Cache<String, CachedRedirect> cache;
+
+    public RedirectCache(final Environment environment, final MeterRegistry meterRegistry) {
+        this.enabled = Boolean.parseBoolean(environment.getProperty("redirect-cache.enabled", "true"));
+        this.defaultTtlSeconds = Long.parseLong(environment.getProperty("redirect-cache.default-ttl-seconds", "30"));
+        this.maxTtlSeconds = Long.parseLong(environment.getProperty("redirect-cache.max-ttl-seconds", "3600"));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Long.parseLong(environment.getProperty("redirect-cache.max-size", "100000")))
+                .expireAfter(new CachedRedirectExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CachedRedirect get(final String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Stores the response if it is a cacheable redirect.
+     *
+     * @return {@code true} if the response was stored
+     */
+    public boolean put(final String key, final HttpStatusCode status, final HttpHeaders responseHeaders) {
+        if (status == null || !CACHEABLE_STATUSES.contains(status.value()) ||
+                responseHeaders.getFirst(HttpHeaders.LOCATION) == null ||
+                responseHeaders.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+
+        final var ttlSeconds = Math.min(getTtlSeconds(status, responseHeaders.getCacheControl()), maxTtlSeconds);
+
+        if (ttlSeconds <= 0) {
+            return false;
+        }
+
+        final var headers = new HttpHeaders();
+
+        for (final var headerName : CACHED_HEADERS) {
+            final var values = responseHeaders.get(headerName);
+
+            if (values != null) {
+                headers.addAll(headerName, values);
+            }
+        }
+
+        cache.put(key, new CachedRedirect(status, HttpHeaders.readOnlyHttpHeaders(headers), Duration.ofSeconds(ttlSeconds).toNanos()));
+        return true;
+    }
+
+    public void invalidate(final String key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns the lifetime in seconds allowed by a {@code Cache-Control} header for a shared cache, or 0 if the
+     * response must not be stored.
+     */
+    long getTtlSeconds(final HttpStatusCode status, final String cacheControl) {
+        final var heuristicTtlSeconds = HEURISTICALLY_CACHEABLE_STATUSES.contains(status.value()) ? defaultTtlSeconds : 0;
+
+        if (cacheControl == null || cacheControl.isBlank()) {
+            return heuristicTtlSeconds;
+        }
+
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+
+        for (final var rawDirective : cacheControl.split(",")) {
+            final var directive = rawDirective.trim().toLowerCase();
+
+            if (directive.equals("no-store") || directive.equals("no-cache") || directive.equals("private")) {
+                return 0;
+            }
+
+            if (directive.startsWith("s-maxage=")) {
+                sharedMaxAge = parseSeconds(directive.substring("s-maxage=".length()));
+            } else if (directive.startsWith("max-age=")) {
+                maxAge = parseSeconds(directive.substring("max-age=".length()));
+            }
+        }
+
+        if (sharedMaxAge >= 0) {
+            return sharedMaxAge;
+        }
+
+        return maxAge >= 0 ? maxAge : heuristicTtlSeconds;
+    }
+
+    private static long parseSeconds(final String value) {
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            log.debug("Invalid Cache-Control age: {}", value);
+            return 0;
+        }
+    }
+
+    /**
+     * A cached redirect: the response status and the stored headers.
+     */
+    public record CachedRedirect(HttpStatusCode status, HttpHeaders headers, long ttlNanos) {
+    }
+
+    private record CachedRedirectExpiry() implements Expiry<String, CachedRedirect> {
+
+        @Override
+        public long expireAfterCreate(@Nonnull final String key, @Nonnull final CachedRedirect redirect, final long currentTime) {
+            return redirect.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(@Nonnull final String key,
+                                      @Nonnull final CachedRedirect redirect,
+                                      final long currentTime,
+                                      final long currentDuration) {
+            return redirect.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(@Nonnull final String key,
+                                    @Nonnull final CachedRedirect redirect,
+                                    final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.akgarg.us.apigw.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * {@link CacheInvalidationChannel} backed by Redis pub/sub on {@code cache-invalidation.redis-channel}.
+ * <p>
+ * Invalidations are applied to the local listeners first and then published, so the publishing node is consistent
+ * even if Redis is unavailable; messages published by this node are ignored when they come back. Pub/sub does not
+ * keep messages for disconnected subscribers, so the caches using this channel must also expire their entries.
+ * Failed publications are counted in {@code urlshortener_api_gateway_cache_invalidation_failures_total}.
+ */
+@Slf4j
+@Component
+@Profile("prod")
+public class RedisCacheInvalidationChannel implements CacheInvalidationChannel {
+
+    private static final char SEPARATOR = '\n';
+
+    private final LocalCacheInvalidationChannel localChannel = new LocalCacheInvalidationChannel();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String redisChannel;
+    private final Counter failureCounter;
+    private Disposable subscription;
+
+    public RedisCacheInvalidationChannel(final ReactiveStringRedisTemplate redisTemplate,
+                                         final Environment environment,
+                                         final MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.redisChannel = environment.getProperty("cache-invalidation.redis-channel", "urlshortener:api-gateway:cache-invalidation");
+        this.failureCounter = Counter.builder("urlshortener_api_gateway_cache_invalidation_failures_total")
+                .description("Number of cache invalidations that could not be published to other gateway nodes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribeToRedis() {
+        subscription = redisTemplate.listenToChannel(redisChannel)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(message -> onMessage(message.getMessage()));
+    }
+
+    @Override
+    public void publish(final CacheInvalidation invalidation) {
+        localChannel.publish(invalidation);
+
+        final var message = nodeId + SEPARATOR + invalidation.cacheName() + SEPARATOR + invalidation.keyPrefix();
+        redisTemplate.convertAndSend(redisChannel, message)
+                .subscribe(
+                        receivers -> log.debug("Published cache invalidation {} to {} node(s)", invalidation, receivers),
+                        e -> {
+                            failureCounter.increment();
+                            log.warn("Failed to publish cache invalidation {}: {}", invalidation, e.getMessage());
+                        }
+                );
+    }
+
+    @Override
+    public void subscribe(final Consumer<CacheInvalidation> listener) {
+        localChannel.subscribe(listener);
+    }
+
+    private void onMessage(final String message) {
+        final var parts = message.split(String.valueOf(SEPARATOR), 3);
+
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed cache invalidation message: {}", message);
+            return;
+        }
+
+        if (!nodeId.equals(parts[0])) {
+            localChannel.publish(new CacheInvalidation(parts[1], parts[2]));
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribeFromRedis() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+}
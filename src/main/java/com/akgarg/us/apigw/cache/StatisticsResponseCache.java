@@ -0,0 +1,192 @@
+package com.akgarg.us.apigw.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code StatisticsResponseCache} is a private cache of the {@code 200} responses of the statistics route, keyed by
+ * user id, path, query and accepted encoding.
+ * <p>
+ * An entry is fresh for {@code statistics-cache.fresh-seconds} and may then be served stale while it is revalidated
+ * in the background, until it expires {@code statistics-cache.stale-seconds} after it was written. At most one
+ * revalidation per key runs at a time.
+ * <p>
+ * The cache is bounded by the total size of the stored bodies and headers ({@code statistics-cache.max-bytes}),
+ * evicted by Caffeine's size policy, and every user by {@code statistics-cache.per-user-max-bytes}: responses that
+ * would exceed the budget of their user are not stored. Disabled unless {@code statistics-cache.enabled=true}.
+ */
+@Component
+public class StatisticsResponseCache {
+
+    private static final String CACHE_NAME = "statistics_cache";
+
+    /**
+     * Approximate fixed cost of an entry (key, record and map node), counted against both budgets.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private static final List<String> CACHED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED
+    );
+
+    private final boolean enabled;
+    private final long freshNanos;
+    private final long perUserMaxBytes;
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, Long> userBytes = new ConcurrentHashMap<>();
+    private final Set<String> revalidations = ConcurrentHashMap.newKeySet();
+
+    public StatisticsResponseCache(final Environment environment, final MeterRegistry meterRegistry) {
+        this.enabled = Boolean.parseBoolean(environment.getProperty("statistics-cache.enabled", "false"));
+        this.freshNanos = Duration.ofSeconds(Long.parseLong(environment.getProperty("statistics-cache.fresh-seconds", "10"))).toNanos();
+        this.perUserMaxBytes = Long.parseLong(environment.getProperty("statistics-cache.per-user-max-bytes", "262144"));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Long.parseLong(environment.getProperty("statistics-cache.max-bytes", "67108864")))
+                .weigher((String key, CachedResponse response) -> response.weight())
+                .expireAfterWrite(Duration.ofSeconds(Long.parseLong(environment.getProperty("statistics-cache.stale-seconds", "60"))))
+                // release the user budget on the calling thread, so the accounting is up to date after each write
+                .executor(Runnable::run)
+                .removalListener((String key, CachedResponse response, RemovalCause cause) -> {
+                    if (response != null) {
+                        release(response.userId(), response.weight());
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getPerUserMaxBytes() {
+        return perUserMaxBytes;
+    }
+
+    public CachedResponse get(final String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Stores a response if it is a cacheable {@code 200} that fits into the budget of its user.
+     *
+     * @return {@code true} if the response was stored
+     */
+    public boolean put(final String key,
+                       final String userId,
+                       final HttpStatusCode status,
+                       final HttpHeaders responseHeaders,
+                       final byte[] body) {
+        if (status == null || status.value() != HttpStatus.OK.value() || !isCacheable(responseHeaders)) {
+            return false;
+        }
+
+        final var headers = new HttpHeaders();
+        var weight = ENTRY_OVERHEAD_BYTES + key.length() + body.length;
+
+        for (final var headerName : CACHED_HEADERS) {
+            final var values = responseHeaders.get(headerName);
+
+            if (values != null) {
+                headers.addAll(headerName, values);
+                weight += headerName.length() + values.stream().mapToInt(String::length).sum();
+            }
+        }
+
+        final var replaced = cache.getIfPresent(key);
+
+        if (!reserve(userId, weight, replaced != null ? replaced.weight() : 0)) {
+            return false;
+        }
+
+        cache.put(key, new CachedResponse(userId, status, HttpHeaders.readOnlyHttpHeaders(headers), body, System.nanoTime(), weight));
+        return true;
+    }
+
+    public boolean isStale(final CachedResponse response) {
+        return System.nanoTime() - response.createdAtNanos() >= freshNanos;
+    }
+
+    /**
+     * Claims the revalidation of a key.
+     *
+     * @return {@code false} if a revalidation of the key is already running
+     */
+    public boolean startRevalidation(final String key) {
+        return revalidations.add(key);
+    }
+
+    public void finishRevalidation(final String key) {
+        revalidations.remove(key);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    long getUserBytes(final String userId) {
+        return userBytes.getOrDefault(userId, 0L);
+    }
+
+    private boolean reserve(final String userId, final int weight, final int replacedWeight) {
+        final var reserved = new boolean[1];
+
+        userBytes.compute(userId, (user, used) -> {
+            final var current = used != null ? used : 0L;
+
+            // the replaced entry is released by the removal listener once the new one is stored
+            if (current - replacedWeight + weight > perUserMaxBytes) {
+                return used;
+            }
+
+            reserved[0] = true;
+            return current + weight;
+        });
+
+        return reserved[0];
+    }
+
+    private void release(final String userId, final int weight) {
+        userBytes.computeIfPresent(userId, (user, used) -> used - weight > 0 ? used - weight : null);
+    }
+
+    private static boolean isCacheable(final HttpHeaders headers) {
+        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+
+        final var cacheControl = headers.getCacheControl();
+        return cacheControl == null || !cacheControl.toLowerCase().contains("no-store");
+    }
+
+    /**
+     * A cached response: its owner, status, stored headers and body.
+     */
+    public record CachedResponse(String userId,
+                                 HttpStatusCode status,
+                                 HttpHeaders headers,
+                                 byte[] body,
+                                 long createdAtNanos,
+                                 int weight) {
+    }
+
+}
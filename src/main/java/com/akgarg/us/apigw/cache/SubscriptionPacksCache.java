@@ -0,0 +1,154 @@
+package com.akgarg.us.apigw.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code SubscriptionPacksCache} keeps the {@code 200} responses of the public subscription pack catalog, keyed by
+ * path, query and {@code Accept-Encoding}.
+ * <p>
+ * Entries are evicted through the {@link CacheInvalidationChannel} whenever an admin changes the packs through any
+ * gateway node, and expire after {@code subscription-packs-cache.ttl-seconds} in case an invalidation is lost.
+ * <p>
+ * Every invalidation advances a generation counter. A response is only stored if no invalidation happened since its
+ * request was proxied, so a catalog read racing with an admin change cannot put the old catalog back.
+ */
+@Slf4j
+@Component
+public class SubscriptionPacksCache {
+
+    private static final String CACHE_NAME = "subscription_packs_cache";
+
+    private static final List<String> CACHED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.CACHE_CONTROL
+    );
+
+    private final boolean enabled;
+    private final long maxBodyBytes;
+    private final Cache<String, CachedResponse> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final CacheInvalidationChannel invalidationChannel;
+
+    public SubscriptionPacksCache(final Environment environment,
+                                  final MeterRegistry meterRegistry,
+                                  final CacheInvalidationChannel invalidationChannel) {
+        this.enabled = Boolean.parseBoolean(environment.getProperty("subscription-packs-cache.enabled", "true"));
+        this.maxBodyBytes = Long.parseLong(environment.getProperty("subscription-packs-cache.max-body-bytes", "1048576"));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Long.parseLong(environment.getProperty("subscription-packs-cache.max-size", "1000")))
+                .expireAfterWrite(Duration.ofSeconds(Long.parseLong(environment.getProperty("subscription-packs-cache.ttl-seconds", "300"))))
+                .recordStats()
+                .build();
+        this.invalidationChannel = invalidationChannel;
+        invalidationChannel.subscribe(invalidation -> {
+            if (CACHE_NAME.equals(invalidation.cacheName())) {
+                invalidateLocally(invalidation.keyPrefix());
+            }
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public CachedResponse get(final String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Returns the current generation, to be passed to {@link #put} for a response proxied from now on.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores the response if it is a cacheable {@code 200} and no invalidation happened since {@code generation}.
+     *
+     * @return {@code true} if the response was stored
+     */
+    public boolean put(final String key,
+                       final long generation,
+                       final HttpStatusCode status,
+                       final HttpHeaders responseHeaders,
+                       final byte[] body) {
+        if (status == null || status.value() != HttpStatus.OK.value() || body.length > maxBodyBytes ||
+                responseHeaders.containsKey(HttpHeaders.SET_COOKIE) || isNoStore(responseHeaders.getCacheControl())) {
+            return false;
+        }
+
+        final var headers = new HttpHeaders();
+
+        for (final var headerName : CACHED_HEADERS) {
+            final var values = responseHeaders.get(headerName);
+
+            if (values != null) {
+                headers.addAll(headerName, values);
+            }
+        }
+
+        final var cachedResponse = new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body);
+
+        if (this.generation.get() != generation) {
+            return false;
+        }
+
+        cache.put(key, cachedResponse);
+
+        // an invalidation may have run between the check and the put
+        if (this.generation.get() != generation) {
+            cache.asMap().remove(key, cachedResponse);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Evicts the entries whose key starts with {@code keyPrefix} on every gateway node.
+     */
+    public void invalidate(final String keyPrefix) {
+        invalidationChannel.publish(new CacheInvalidationChannel.CacheInvalidation(CACHE_NAME, keyPrefix));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private void invalidateLocally(final String keyPrefix) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+        log.info("Invalidated subscription packs cache entries starting with {}", keyPrefix);
+    }
+
+    private static boolean isNoStore(final String cacheControl) {
+        return cacheControl != null && cacheControl.toLowerCase().contains("no-store");
+    }
+
+    /**
+     * A cached catalog response: status, stored headers and body.
+     */
+    public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+}
@@ -6,10 +6,14 @@ import com.akgarg.client.authclient.cache.AuthTokenCacheStrategy;
 import com.akgarg.client.authclient.common.ApiVersion;
 import com.akgarg.client.authclient.config.RedisConnectionConfigs;
 import com.akgarg.client.authclient.config.RedisConnectionPoolConfigs;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @Configuration
 public class BeanConfig {
@@ -43,4 +47,28 @@ public class BeanConfig {
                 .build();
     }
 
+    @Bean(destroyMethod = "dispose")
+    public Scheduler authTokenValidationScheduler(final Environment environment) {
+        return Schedulers.newBoundedElastic(
+                Integer.parseInt(environment.getProperty("auth.client.validation.threads", "32")),
+                Integer.parseInt(environment.getProperty("auth.client.validation.queue-size", "10000")),
+                "auth-token-validator"
+        );
+    }
+
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder statisticsServiceWebClientBuilder() {
+        return WebClient.builder()
+                .baseUrl("http://urlshortener-statistics-service");
+    }
+
+    /**
+     * Client for hedged requests, which are sent to an instance picked by the gateway rather than by a load balancer.
+     */
+    @Bean
+    public WebClient.Builder hedgeWebClientBuilder() {
+        return WebClient.builder();
+    }
+
 }
@@ -0,0 +1,10 @@
+package com.akgarg.us.apigw.config;
+
+import com.akgarg.us.apigw.loadbalancer.LoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfiguration.class)
+public class LoadBalancerClientsConfig {
+}
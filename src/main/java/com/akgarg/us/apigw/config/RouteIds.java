@@ -0,0 +1,20 @@
+package com.akgarg.us.apigw.config;
+
+public final class RouteIds {
+
+    public static final String FAVICON = "favicon.ico";
+    public static final String AUTH_SERVICE = "auth_service";
+    public static final String URL_SHORTENER_SERVICE = "urlshortener_service";
+    public static final String STATISTICS_SERVICE = "urlshortener-statistics-service";
+    public static final String PROFILE_SERVICE = "urlshortener-profile-service";
+    public static final String PAYPAL_WEBHOOK = "urlshortener-payment-service-paypal-webhook";
+    public static final String PAYMENT_SERVICE = "urlshortener-payment-service";
+    public static final String SUBSCRIPTION_PACKS = "urlshortener-subscription-packs";
+    public static final String SUBSCRIPTION_SERVICE = "urlshortener-subscription-service";
+    public static final String URL_SHORTENER_PUBLIC = "urlshortener_service_public";
+
+    private RouteIds() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+}
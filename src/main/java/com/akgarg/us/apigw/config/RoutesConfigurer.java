@@ -1,7 +1,13 @@
 package com.akgarg.us.apigw.config;
 
 import com.akgarg.us.apigw.filter.AuthTokenFilter;
+import com.akgarg.us.apigw.filter.HedgingFilter;
 import com.akgarg.us.apigw.filter.RateLimiterFilter;
+import com.akgarg.us.apigw.filter.RedirectCacheFilter;
+import com.akgarg.us.apigw.filter.SingleFlightFilter;
+import com.akgarg.us.apigw.filter.StatisticsCacheFilter;
+import com.akgarg.us.apigw.filter.SubscriptionPacksCacheFilter;
+import com.akgarg.us.apigw.filter.UnknownShortCodeFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
@@ -16,67 +22,73 @@ public class RoutesConfigurer {
 
     private final RateLimiterFilter rateLimiterFilter;
     private final AuthTokenFilter authTokenFilter;
+    private final RedirectCacheFilter redirectCacheFilter;
+    private final UnknownShortCodeFilter unknownShortCodeFilter;
+    private final SingleFlightFilter singleFlightFilter;
+    private final HedgingFilter hedgingFilter;
+    private final StatisticsCacheFilter statisticsCacheFilter;
+    private final SubscriptionPacksCacheFilter subscriptionPacksCacheFilter;
 
     @Bean
     public RouteLocator routeLocator(final RouteLocatorBuilder routeLocatorBuilder) {
         final var router = routeLocatorBuilder.routes();
 
-        router.route("favicon.ico", r -> r
+        router.route(RouteIds.FAVICON, r -> r
                 .path("/favicon.ico")
                 .filters(filterSpec -> filterSpec.setStatus(HttpStatus.NO_CONTENT))
                 .uri("no://noop")
         );
 
-        router.route("auth_service", r -> r
+        router.route(RouteIds.AUTH_SERVICE, r -> r
                 .path(ApiRoutes.AUTH_API_PATH)
                 .filters(filterSpec -> filterSpec.filters(rateLimiterFilter))
                 .uri("lb://urlshortener-auth-service")
         );
 
-        router.route("urlshortener_service", r -> r
+        router.route(RouteIds.URL_SHORTENER_SERVICE, r -> r
                 .path(ApiRoutes.URL_SHORTENER_API_PATH)
                 .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, authTokenFilter))
                 .uri("lb://urlshortener-service")
         );
 
-        router.route("urlshortener-statistics-service", r -> r
+        router.route(RouteIds.STATISTICS_SERVICE, r -> r
                 .path(ApiRoutes.STATISTICS_API_PATH)
-                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, authTokenFilter))
+                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, authTokenFilter, statisticsCacheFilter))
                 .uri("lb://urlshortener-statistics-service")
         );
 
-        router.route("urlshortener-profile-service", r -> r
+        router.route(RouteIds.PROFILE_SERVICE, r -> r
                 .path(ApiRoutes.PROFILE_API_PATH)
                 .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, authTokenFilter))
                 .uri("lb://urlshortener-profile-service"));
 
-        router.route("urlshortener-payment-service-paypal-webhook", r -> r
+        router.route(RouteIds.PAYPAL_WEBHOOK, r -> r
                 .path(ApiRoutes.PAYPAL_WEBHOOK_API_PATH)
                 .filters(filterSpec -> filterSpec.filters(rateLimiterFilter))
                 .uri("lb://urlshortener-payment-service"));
 
-        router.route("urlshortener-payment-service", r -> r
+        router.route(RouteIds.PAYMENT_SERVICE, r -> r
                 .path(ApiRoutes.PAYMENT_API_PATH)
                 .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, authTokenFilter))
                 .uri("lb://urlshortener-payment-service"));
 
-        router.route("urlshortener-subscription-packs", r -> r
+        router.route(RouteIds.SUBSCRIPTION_PACKS, r -> r
                 .path(ApiRoutes.SUBSCRIPTION_PACKS_API_PATH)
                 .and()
                 .method(HttpMethod.GET)
-                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter))
+                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, subscriptionPacksCacheFilter))
                 .uri("lb://urlshortener-subscription-service"));
 
-        router.route("urlshortener-subscription-service", r -> r
+        router.route(RouteIds.SUBSCRIPTION_SERVICE, r -> r
                 .path(ApiRoutes.SUBSCRIPTION_API_PATH)
-                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, authTokenFilter))
+                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, authTokenFilter, subscriptionPacksCacheFilter))
                 .uri("lb://urlshortener-subscription-service"));
 
-        router.route("urlshortener_service_public", r -> r
-                .path("/**")
+        router.route(RouteIds.URL_SHORTENER_PUBLIC, r -> r
+                .path(ApiRoutes.GENERIC_API_PATH)
                 .and()
                 .not(r1 -> r1.path("/actuator/**"))
-                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter))
+                .filters(filterSpec -> filterSpec.filters(rateLimiterFilter, redirectCacheFilter, unknownShortCodeFilter, singleFlightFilter, hedgingFilter))
                 .uri("lb://urlshortener-service")
         );
 
@@ -1,5 +1,6 @@
 package com.akgarg.us.apigw.error;
 
+import com.akgarg.us.apigw.filter.RequestIdFilter;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
 import org.springframework.boot.web.reactive.error.DefaultErrorAttributes;
 import org.springframework.core.annotation.MergedAnnotation;
@@ -19,7 +20,7 @@ public class GlobalErrorAttributes extends DefaultErrorAttributes {
 
     @Override
     public Map<String, Object> getErrorAttributes(final ServerRequest request, final ErrorAttributeOptions options) {
-        final Map<String, Object> errorAttributes = HashMap.newHashMap(3);
+        final Map<String, Object> errorAttributes = HashMap.newHashMap(4);
         final var error = getError(request);
         final var responseStatusAnnotation = MergedAnnotations
                 .from(error.getClass(), MergedAnnotations.SearchStrategy.TYPE_HIERARCHY)
@@ -29,6 +30,7 @@ public class GlobalErrorAttributes extends DefaultErrorAttributes {
         errorAttributes.put("status", errorHttpStatus.value());
         errorAttributes.put("message", errorHttpStatus.getReasonPhrase());
         errorAttributes.put("traceId", request.exchange().getLogPrefix());
+        errorAttributes.put("requestId", RequestIdFilter.getRequestId(request.exchange()));
 
         return errorAttributes;
     }
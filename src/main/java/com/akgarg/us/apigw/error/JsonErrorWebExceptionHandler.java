@@ -1,6 +1,8 @@
 package com.akgarg.us.apigw.error;
 
+import com.akgarg.us.apigw.filter.RequestIdFilter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.logging.log4j.CloseableThreadContext;
 import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.boot.autoconfigure.web.reactive.error.AbstractErrorWebExceptionHandler;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
@@ -18,6 +20,8 @@ import reactor.core.publisher.Mono;
 
 import java.util.Map;
 
+import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_ATTRIBUTE_NAME;
+
 @Slf4j
 @Component
 @Order(-2)
@@ -50,13 +54,16 @@ public class JsonErrorWebExceptionHandler extends AbstractErrorWebExceptionHandl
 
     @Override
     protected void logError(final ServerRequest request, final ServerResponse response, final Throwable throwable) {
-        log.error(
-                "'{}' in processing request: {}",
-                throwable.getClass().getSimpleName(),
-                throwable.getMessage()
-        );
-        if (log.isDebugEnabled()) {
-            log.error("Exception stacktrace:", throwable);
+        // exception handlers run outside the Reactor context of the filter chain
+        try (final var ignored = CloseableThreadContext.put(REQUEST_ID_ATTRIBUTE_NAME, RequestIdFilter.getRequestId(request.exchange()))) {
+            log.error(
+                    "'{}' in processing request: {}",
+                    throwable.getClass().getSimpleName(),
+                    throwable.getMessage()
+            );
+            if (log.isDebugEnabled()) {
+                log.error("Exception stacktrace:", throwable);
+            }
         }
     }
 
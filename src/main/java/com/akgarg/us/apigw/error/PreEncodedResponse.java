@@ -0,0 +1,137 @@
+package com.akgarg.us.apigw.error;
+
+import com.akgarg.us.apigw.exception.ApiGatewayException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@code PreEncodedResponse} is an immutable JSON response whose body is encoded once at startup and shared by all
+ * requests, used for the responses the gateway itself short-circuits with (rate limit, auth failures).
+ * <p>
+ * Static bodies are written by wrapping a read-only view of the shared bytes, so no encoding or copy happens per
+ * response. Bodies shaped like {@link ApiErrorResponse} carry the request id, which is spliced as a JSON string
+ * between the pre-encoded parts before and after it instead of serializing the whole response again.
+ */
+public final class PreEncodedResponse {
+
+    private static final String REQUEST_ID_PLACEHOLDER = "__request_id__";
+    private static final byte[] NULL_LITERAL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpStatus status;
+
+    /**
+     * The whole body for static responses, otherwise the part before the request id.
+     */
+    private final ByteBuffer body;
+
+    /**
+     * The part after the request id, or {@code null} for static responses.
+     */
+    private final byte[] suffix;
+
+    private PreEncodedResponse(final HttpStatus status, final byte[] body, final byte[] suffix) {
+        this.status = status;
+        this.body = ByteBuffer.wrap(body).asReadOnlyBuffer();
+        this.suffix = suffix;
+    }
+
+    /**
+     * Creates a response with a static JSON body.
+     */
+    public static PreEncodedResponse of(final HttpStatus status, final String json) {
+        return new PreEncodedResponse(status, json.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * Creates an {@link ApiErrorResponse} whose request id is supplied per response to
+     * {@link #write(ServerWebExchange, String)}.
+     */
+    public static PreEncodedResponse apiError(final ObjectMapper objectMapper, final HttpStatus status, final String message) {
+        final String template;
+
+        try {
+            template = objectMapper.writeValueAsString(new ApiErrorResponse(status.value(), REQUEST_ID_PLACEHOLDER, message));
+        } catch (JsonProcessingException e) {
+            throw new ApiGatewayException("Error stringify %d response JSON".formatted(status.value()), e);
+        }
+
+        final var quotedPlaceholder = '"' + REQUEST_ID_PLACEHOLDER + '"';
+        final var placeholderIndex = template.indexOf(quotedPlaceholder);
+
+        return new PreEncodedResponse(
+                status,
+                template.substring(0, placeholderIndex).getBytes(StandardCharsets.UTF_8),
+                template.substring(placeholderIndex + quotedPlaceholder.length()).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Writes the static response.
+     */
+    public Mono<Void> write(final ServerWebExchange exchange) {
+        return write(exchange, null);
+    }
+
+    /**
+     * Writes the response, splicing in the request id if the response carries one.
+     */
+    public Mono<Void> write(final ServerWebExchange exchange, final String requestId) {
+        final var response = exchange.getResponse();
+        final var bufferFactory = response.bufferFactory();
+        final DataBuffer dataBuffer;
+
+        if (suffix == null) {
+            dataBuffer = bufferFactory.wrap(body.duplicate());
+        } else {
+            final var encodedRequestId = requestId != null ? encodeJsonString(requestId) : NULL_LITERAL;
+            dataBuffer = bufferFactory.allocateBuffer(body.remaining() + encodedRequestId.length + suffix.length)
+                    .write(body.duplicate())
+                    .write(encodedRequestId)
+                    .write(suffix);
+        }
+
+        response.setStatusCode(status);
+        response.getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        response.getHeaders().setContentLength(dataBuffer.readableByteCount());
+        return response.writeWith(Mono.just(dataBuffer));
+    }
+
+    /**
+     * Encodes the value as a quoted JSON string. Request ids are client supplied, so quotes, backslashes and
+     * control characters are escaped.
+     */
+    static byte[] encodeJsonString(final String value) {
+        final var json = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u%04X".formatted((int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+
+        return json.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
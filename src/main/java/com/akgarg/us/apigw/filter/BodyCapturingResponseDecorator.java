@@ -0,0 +1,111 @@
+package com.akgarg.us.apigw.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Streams the proxied body of successful responses through while keeping a copy of it, and hands the copy, with the
+ * final status and headers, to a {@link BodyConsumer} once the whole body was written. Responses that are not
+ * {@code 2xx} or announce a {@code Content-Length} above {@code maxBodyBytes} are streamed through untouched, and
+ * the copy of a body without a length is dropped as soon as it grows past {@code maxBodyBytes}.
+ */
+final class BodyCapturingResponseDecorator extends ServerHttpResponseDecorator {
+
+    private final long maxBodyBytes;
+    private final BodyConsumer bodyConsumer;
+
+    BodyCapturingResponseDecorator(final ServerHttpResponse delegate,
+                                   final long maxBodyBytes,
+                                   final BodyConsumer bodyConsumer) {
+        super(delegate);
+        this.maxBodyBytes = maxBodyBytes;
+        this.bodyConsumer = bodyConsumer;
+    }
+
+    @Override
+    public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+        final var status = getStatusCode();
+
+        if (status == null || !status.is2xxSuccessful() || getHeaders().getContentLength() > maxBodyBytes) {
+            return super.writeWith(body);
+        }
+
+        final var copy = new BodyCopy(maxBodyBytes);
+
+        return super.writeWith(Flux.from(body).doOnNext(copy::append))
+                .then(Mono.fromRunnable(() -> {
+                    final var bytes = copy.toByteArray();
+
+                    if (bytes != null) {
+                        bodyConsumer.accept(status, getHeaders(), bytes);
+                    }
+                }));
+    }
+
+    /**
+     * Writes a cached response with its stored headers and body.
+     */
+    static Mono<Void> writeCached(final ServerHttpResponse response,
+                                  final HttpStatusCode status,
+                                  final HttpHeaders headers,
+                                  final byte[] body) {
+        response.setStatusCode(status);
+        response.getHeaders().addAll(headers);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    /**
+     * Copy of the body written so far, dropped once it grows past the limit.
+     */
+    private static final class BodyCopy {
+
+        private final long maxBytes;
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private BodyCopy(final long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized void append(final DataBuffer buffer) {
+            if (bytes == null) {
+                return;
+            }
+
+            final var length = buffer.readableByteCount();
+
+            if (bytes.size() + (long) length > maxBytes) {
+                bytes = null;
+                return;
+            }
+
+            // copies without consuming the buffer, which is still to be written
+            final var chunk = new byte[length];
+            final var readPosition = buffer.readPosition();
+            buffer.read(chunk);
+            buffer.readPosition(readPosition);
+            bytes.writeBytes(chunk);
+        }
+
+        private synchronized byte[] toByteArray() {
+            return bytes != null ? bytes.toByteArray() : null;
+        }
+
+    }
+
+    @FunctionalInterface
+    interface BodyConsumer {
+
+        void accept(HttpStatusCode status, HttpHeaders headers, byte[] body);
+
+    }
+
+}
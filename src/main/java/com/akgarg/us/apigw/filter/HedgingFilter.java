@@ -0,0 +1,352 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.loadbalancer.HedgePolicy;
+import com.akgarg.us.apigw.loadbalancer.LoadBalancerStatsRegistry;
+import com.akgarg.us.apigw.loadbalancer.OutlierDetector;
+import com.akgarg.us.apigw.utils.HeaderUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * {@code HedgingFilter} hedges slow GET requests of an {@code lb://} route: if the instance chosen by the load
+ * balancer has not answered within the delay given by the {@link HedgePolicy}, the request is sent once more to
+ * another instance. The first response is written to the client and the other request is cancelled.
+ * <p>
+ * The proxied request writes to a response decorator that keeps its status and headers aside until it claims the
+ * response, so nothing reaches the client before one of the two requests has won. The hedge is sent directly to the
+ * healthy instance with the lowest expected cost and its response is buffered; a {@code 5xx} or failed hedge never
+ * wins. Like the proxied request, the hedge carries the request headers passed through the {@link HttpHeadersFilter}s
+ * ({@code X-Forwarded-*}, request id). Hedges are only sent while the hedging budget allows it. The filter is opt-in:
+ * add it to a route in {@code RoutesConfigurer}.
+ * <p>
+ * When the hedge wins, the exchange is marked with {@link #HEDGE_WON_ATTRIBUTE_NAME} before the proxied request is
+ * cancelled, so {@link LoadBalancerStatsFilter} samples the time the primary instance had taken so far as a lower
+ * bound of its latency instead of dropping the sample.
+ */
+@Slf4j
+@Component
+public class HedgingFilter implements GatewayFilter {
+
+    /**
+     * Response headers that belong to the connection to the instance and must not be copied to the client.
+     */
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            "keep-alive"
+    );
+
+    static final String HEDGE_WON_ATTRIBUTE_NAME = "hedgeWon";
+
+    private final HedgePolicy hedgePolicy;
+    private final LoadBalancerStatsRegistry statsRegistry;
+    private final OutlierDetector outlierDetector;
+    /**
+     * Looks up the instances of a service, by default from the service instance list supplier of its load balancer.
+     */
+    private final Function<String, Mono<List<ServiceInstance>>> serviceInstances;
+    private final Supplier<List<HttpHeadersFilter>> headersFiltersProvider;
+    private final WebClient hedgeWebClient;
+    private final Counter wonCounter;
+    private final Counter lostCounter;
+    private final Counter failedCounter;
+    private final Counter budgetExhaustedCounter;
+    private final Counter noInstanceCounter;
+
+    /**
+     * Resolved on first use, since some headers filters depend on beans created after this filter.
+     */
+    private volatile List<HttpHeadersFilter> headersFilters;
+
+    @Autowired
+    public HedgingFilter(final HedgePolicy hedgePolicy,
+                         final LoadBalancerStatsRegistry statsRegistry,
+                         final OutlierDetector outlierDetector,
+                         final LoadBalancerClientFactory loadBalancerClientFactory,
+                         final ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                         @Qualifier("hedgeWebClientBuilder") final WebClient.Builder hedgeWebClientBuilder,
+                         final MeterRegistry meterRegistry) {
+        this(hedgePolicy, statsRegistry, outlierDetector, serviceId -> {
+            final var supplier = loadBalancerClientFactory.getInstance(serviceId, ServiceInstanceListSupplier.class);
+            return supplier == null ? Mono.empty() : supplier.get().next();
+        }, () -> headersFiltersProvider.getIfAvailable(List::of), hedgeWebClientBuilder, meterRegistry);
+    }
+
+    HedgingFilter(final HedgePolicy hedgePolicy,
+                  final LoadBalancerStatsRegistry statsRegistry,
+                  final OutlierDetector outlierDetector,
+                  final Function<String, Mono<List<ServiceInstance>>> serviceInstances,
+                  final Supplier<List<HttpHeadersFilter>> headersFiltersProvider,
+                  final WebClient.Builder hedgeWebClientBuilder,
+                  final MeterRegistry meterRegistry) {
+        this.hedgePolicy = hedgePolicy;
+        this.statsRegistry = statsRegistry;
+        this.outlierDetector = outlierDetector;
+        this.serviceInstances = serviceInstances;
+        this.headersFiltersProvider = headersFiltersProvider;
+        this.hedgeWebClient = hedgeWebClientBuilder.build();
+        this.wonCounter = hedgeCounter(meterRegistry, "won");
+        this.lostCounter = hedgeCounter(meterRegistry, "lost");
+        this.failedCounter = hedgeCounter(meterRegistry, "failed");
+        this.budgetExhaustedCounter = skippedHedgeCounter(meterRegistry, "budget_exhausted");
+        this.noInstanceCounter = skippedHedgeCounter(meterRegistry, "no_instance");
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+
+        if (!hedgePolicy.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.GET ||
+                route == null || !"lb".equals(route.getUri().getScheme())) {
+            return chain.filter(exchange);
+        }
+
+        final var response = exchange.getResponse();
+        final var startTime = System.nanoTime();
+        // the latency seen by the client, whichever request answered
+        response.beforeCommit(() -> {
+            hedgePolicy.recordLatency(System.nanoTime() - startTime);
+            return Mono.empty();
+        });
+
+        hedgePolicy.recordRequest();
+        final var hedgeDelayNanos = hedgePolicy.getHedgeDelayNanos();
+
+        if (hedgeDelayNanos < 0) {
+            return chain.filter(exchange);
+        }
+
+        final var claimed = new AtomicBoolean();
+        final var proxied = chain.filter(exchange.mutate().response(new ClaimingResponseDecorator(response, claimed)).build());
+        final var hedged = Mono.delay(Duration.ofNanos(hedgeDelayNanos))
+                .then(Mono.defer(() -> hedge(exchange, route.getUri().getHost(), claimed)));
+
+        // the request that lost never signals and is cancelled once the winner completes
+        return Mono.firstWithSignal(proxied, hedged);
+    }
+
+    private Mono<Void> hedge(final ServerWebExchange exchange, final String serviceId, final AtomicBoolean claimed) {
+        if (claimed.get()) {
+            return Mono.never();
+        }
+
+        final Response<ServiceInstance> loadBalancerResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        final var primaryInstance = loadBalancerResponse != null ? loadBalancerResponse.getServer() : null;
+
+        return serviceInstances.apply(serviceId)
+                .mapNotNull(instances -> hedgePolicy.chooseHedgeInstance(serviceId, instances, primaryInstance))
+                .switchIfEmpty(Mono.fromRunnable(noInstanceCounter::increment))
+                .filter(instance -> {
+                    if (hedgePolicy.tryAcquireHedge()) {
+                        return true;
+                    }
+
+                    budgetExhaustedCounter.increment();
+                    return false;
+                })
+                .flatMap(instance -> sendHedge(exchange, serviceId, instance, claimed).thenReturn(instance))
+                .switchIfEmpty(Mono.never())
+                .then();
+    }
+
+    /**
+     * Sends the hedge and writes its response if it answers first. Completes once the response is written, and
+     * never if the hedge lost or failed.
+     */
+    private Mono<Void> sendHedge(final ServerWebExchange exchange,
+                                 final String serviceId,
+                                 final ServiceInstance instance,
+                                 final AtomicBoolean claimed) {
+        final var uri = exchange.getRequest().getURI();
+        final var pathAndQuery = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + '?' + uri.getRawQuery();
+        final var forwardedHeaders = HttpHeadersFilter.filterRequest(getHeadersFilters(), exchange);
+        final var stats = statsRegistry.getStats(serviceId, instance);
+        final var status = new AtomicReference<HttpStatusCode>();
+        final var startTime = System.nanoTime();
+        stats.start();
+
+        return hedgeWebClient.get()
+                .uri(URI.create(instance.getUri() + pathAndQuery))
+                .headers(headers -> HeaderUtils.copyForwardableHeaders(forwardedHeaders, headers))
+                .exchangeToMono(clientResponse -> {
+                    status.set(clientResponse.statusCode());
+                    return clientResponse.bodyToMono(byte[].class)
+                            .defaultIfEmpty(new byte[0])
+                            .map(body -> new HedgeResponse(clientResponse.statusCode(), clientResponse.headers().asHttpHeaders(), body));
+                })
+                .doFinally(signalType -> {
+                    if (signalType == SignalType.CANCEL) {
+                        lostCounter.increment();
+
+                        if (status.get() == null) {
+                            stats.finish(-1);
+                            return;
+                        }
+                    }
+
+                    stats.finish(System.nanoTime() - startTime);
+                    outlierDetector.record(serviceId, instance, status.get() != null && !status.get().is5xxServerError());
+                })
+                .onErrorResume(e -> {
+                    failedCounter.increment();
+                    log.debug("Hedge to {} failed: {}", instance.getUri(), e.getMessage());
+                    return Mono.never();
+                })
+                .flatMap(hedgeResponse -> {
+                    if (hedgeResponse.status().is5xxServerError()) {
+                        failedCounter.increment();
+                        return Mono.never();
+                    }
+
+                    if (!claimed.compareAndSet(false, true)) {
+                        lostCounter.increment();
+                        return Mono.never();
+                    }
+
+                    wonCounter.increment();
+                    exchange.getAttributes().put(HEDGE_WON_ATTRIBUTE_NAME, Boolean.TRUE);
+                    return hedgeResponse.writeTo(exchange.getResponse());
+                });
+    }
+
+    private List<HttpHeadersFilter> getHeadersFilters() {
+        var filters = headersFilters;
+
+        if (filters == null) {
+            filters = headersFiltersProvider.get();
+            headersFilters = filters;
+        }
+
+        return filters;
+    }
+
+    private static Counter hedgeCounter(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder("urlshortener_api_gateway_hedged_requests_total")
+                .description("Number of hedged requests sent to a second instance")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter skippedHedgeCounter(final MeterRegistry meterRegistry, final String reason) {
+        return Counter.builder("urlshortener_api_gateway_hedged_requests_skipped_total")
+                .description("Number of slow requests that were not hedged")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Keeps the status and headers of the proxied response aside until it is written, and only writes it if the
+     * hedge has not claimed the response first.
+     */
+    private static final class ClaimingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final AtomicBoolean claimed;
+        private final HttpHeaders headers = new HttpHeaders();
+        private HttpStatusCode statusCode;
+
+        private ClaimingResponseDecorator(final ServerHttpResponse delegate, final AtomicBoolean claimed) {
+            super(delegate);
+            this.claimed = claimed;
+        }
+
+        @Override
+        public boolean setStatusCode(final HttpStatusCode status) {
+            this.statusCode = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return statusCode != null ? statusCode : super.getStatusCode();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+            return claim() ? super.writeWith(body) : Mono.never();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return claim() ? super.writeAndFlushWith(body) : Mono.never();
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return claim() ? super.setComplete() : Mono.never();
+        }
+
+        private boolean claim() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+
+            final var delegate = getDelegate();
+
+            if (statusCode != null) {
+                delegate.setStatusCode(statusCode);
+            }
+
+            delegate.getHeaders().putAll(headers);
+            return true;
+        }
+
+    }
+
+    private record HedgeResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+        private Mono<Void> writeTo(final ServerHttpResponse response) {
+            response.setStatusCode(status);
+            headers.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                    response.getHeaders().put(name, values);
+                }
+            });
+            response.getHeaders().setContentLength(body.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+
+    }
+
+}
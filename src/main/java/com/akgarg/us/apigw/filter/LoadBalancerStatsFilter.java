@@ -0,0 +1,75 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.loadbalancer.LoadBalancerStatsRegistry;
+import com.akgarg.us.apigw.loadbalancer.OutlierDetector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Feeds the {@link LoadBalancerStatsRegistry} and the {@link OutlierDetector} with the requests proxied to the
+ * instance chosen by the load balancer.
+ * <p>
+ * Runs right after {@link ReactiveLoadBalancerClientFilter}, so the measured latency spans from sending the request to
+ * receiving the response headers of the instance. Cancelled requests (e.g. the client went away) only release their
+ * in-flight slot and are not sampled, except when {@link HedgingFilter} cancelled them because its hedge won: the
+ * time taken so far is then sampled as a lower bound of the latency, so a slow instance is not left looking idle. Outcomes are only recorded by the {@link OutlierDetector} for services balanced
+ * by {@code p2c-ewma}, the only balancer that ejects instances.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+
+    private final LoadBalancerStatsRegistry statsRegistry;
+    private final OutlierDetector outlierDetector;
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final Response<ServiceInstance> loadBalancerResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        final Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+
+        if (loadBalancerResponse == null || !loadBalancerResponse.hasServer() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        // the load balancer of an lb:// route is looked up by the host of the route URI
+        final var serviceId = route.getUri().getHost();
+        final var instance = loadBalancerResponse.getServer();
+        final var stats = statsRegistry.getStats(serviceId, instance);
+        final var startTime = System.nanoTime();
+        stats.start();
+
+        return chain.filter(exchange)
+                .doFinally(signalType -> {
+                    if (signalType == SignalType.CANCEL) {
+                        final var hedgeWon = Boolean.TRUE.equals(exchange.getAttribute(HedgingFilter.HEDGE_WON_ATTRIBUTE_NAME));
+                        stats.finish(hedgeWon ? System.nanoTime() - startTime : -1);
+                        return;
+                    }
+
+                    stats.finish(System.nanoTime() - startTime);
+
+                    final var status = exchange.getResponse().getStatusCode();
+                    final var success = signalType == SignalType.ON_COMPLETE && (status == null || !status.is5xxServerError());
+                    outlierDetector.record(serviceId, instance, success);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+
+}
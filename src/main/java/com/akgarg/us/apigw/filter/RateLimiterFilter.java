@@ -1,20 +1,26 @@
 package com.akgarg.us.apigw.filter;
 
 import com.akgarg.us.apigw.config.ApiRoutes;
-import com.akgarg.us.apigw.ratelimiter.RateLimiter;
+import com.akgarg.us.apigw.config.RouteIds;
+import com.akgarg.us.apigw.error.PreEncodedResponse;
+import com.akgarg.us.apigw.metrics.HeavyHittersTracker;
+import com.akgarg.us.apigw.ratelimiter.RateLimitDecision;
+import com.akgarg.us.apigw.ratelimiter.ReactiveRateLimiter;
 import com.akgarg.us.apigw.ratelimiter.RateLimitingStrategy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 import reactor.core.publisher.Mono;
 
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.akgarg.us.apigw.utils.IpUtils.extractClientIp;
@@ -24,93 +30,176 @@ import static com.akgarg.us.apigw.utils.IpUtils.extractClientIp;
 @RequiredArgsConstructor
 public class RateLimiterFilter extends AbstractApiGatewayFilter {
 
-    private static final Map<String, RateLimitingStrategy> rateLimiterPathStrategies = new LinkedHashMap<>();
-    private static final AntPathMatcher pathMatcher = new AntPathMatcher();
-
-    private static final String IP_FETCH_FAILURE_RESPONSE = """
+    private static final String RATE_LIMIT_LIMIT_HEADER_NAME = "X-RateLimit-Limit";
+    private static final String RATE_LIMIT_REMAINING_HEADER_NAME = "X-RateLimit-Remaining";
+    private static final String RATE_LIMIT_RESET_HEADER_NAME = "X-RateLimit-Reset";
+
+    private static final RateLimitRule PAYPAL_WEBHOOK_RULE = rule(ApiRoutes.PAYPAL_WEBHOOK_API_PATH, RateLimitingStrategy.IP);
+    private static final RateLimitRule SUBSCRIPTION_PACKS_RULE = rule(ApiRoutes.SUBSCRIPTION_PACKS_API_PATH, RateLimitingStrategy.IP);
+    private static final RateLimitRule URL_SHORTENER_RULE = rule(ApiRoutes.URL_SHORTENER_API_PATH, RateLimitingStrategy.USER_ID);
+    private static final RateLimitRule SUBSCRIPTION_RULE = rule(ApiRoutes.SUBSCRIPTION_API_PATH, RateLimitingStrategy.USER_ID);
+    private static final RateLimitRule STATISTICS_RULE = rule(ApiRoutes.STATISTICS_API_PATH, RateLimitingStrategy.USER_ID);
+    private static final RateLimitRule PROFILE_RULE = rule(ApiRoutes.PROFILE_API_PATH, RateLimitingStrategy.USER_ID);
+    private static final RateLimitRule PAYMENT_RULE = rule(ApiRoutes.PAYMENT_API_PATH, RateLimitingStrategy.USER_ID);
+    private static final RateLimitRule AUTH_RULE = rule(ApiRoutes.AUTH_API_PATH, RateLimitingStrategy.IP);
+    private static final RateLimitRule GENERIC_RULE = rule(ApiRoutes.GENERIC_API_PATH, RateLimitingStrategy.IP);
+
+    /**
+     * All rules in match order, used when the exchange carries no (known) gateway route.
+     */
+    private static final List<RateLimitRule> rateLimitRules = List.of(
+            PAYPAL_WEBHOOK_RULE,
+            SUBSCRIPTION_PACKS_RULE,
+            URL_SHORTENER_RULE,
+            SUBSCRIPTION_RULE,
+            STATISTICS_RULE,
+            PROFILE_RULE,
+            PAYMENT_RULE,
+            AUTH_RULE,
+            GENERIC_RULE
+    );
+
+    /**
+     * Candidate rules per gateway route id, built once. Routes with a single candidate are resolved without any
+     * path matching; the subscription route also serves non-GET requests to the packs API, so it keeps the
+     * packs rule in front of its own.
+     */
+    private static final Map<String, List<RateLimitRule>> routeRateLimitRules = Map.of(
+            RouteIds.AUTH_SERVICE, List.of(AUTH_RULE),
+            RouteIds.URL_SHORTENER_SERVICE, List.of(URL_SHORTENER_RULE),
+            RouteIds.STATISTICS_SERVICE, List.of(STATISTICS_RULE),
+            RouteIds.PROFILE_SERVICE, List.of(PROFILE_RULE),
+            RouteIds.PAYPAL_WEBHOOK, List.of(PAYPAL_WEBHOOK_RULE),
+            RouteIds.PAYMENT_SERVICE, List.of(PAYMENT_RULE),
+            RouteIds.SUBSCRIPTION_PACKS, List.of(SUBSCRIPTION_PACKS_RULE),
+            RouteIds.SUBSCRIPTION_SERVICE, List.of(SUBSCRIPTION_PACKS_RULE, SUBSCRIPTION_RULE),
+            RouteIds.URL_SHORTENER_PUBLIC, List.of(GENERIC_RULE)
+    );
+
+    private static final PreEncodedResponse IP_FETCH_FAILURE_RESPONSE = PreEncodedResponse.of(HttpStatus.BAD_REQUEST, """
             {
                 "message": "Request validation Failed",
                 "description": "Failed to extract client IP address.",
                 "code": 400
-            }""";
+            }""");
 
-    private static final String USER_ID_FETCH_FAILURE_RESPONSE = """
+    private static final PreEncodedResponse USER_ID_FETCH_FAILURE_RESPONSE = PreEncodedResponse.of(HttpStatus.UNAUTHORIZED, """
             {
                 "message": "Auth Failure",
                 "description": "Header %s is missing or has invalid value.",
                 "code": 401
-            }""".formatted(USER_ID_HEADER_NAME);
+            }""".formatted(USER_ID_HEADER_NAME));
 
-    private static final String RATE_LIMIT_EXCEEDED_RESPONSE = """
+    private static final PreEncodedResponse RATE_LIMIT_EXCEEDED_RESPONSE = PreEncodedResponse.of(HttpStatus.TOO_MANY_REQUESTS, """
             {
                 "message": "Rate Limit Exceeded",
                 "description": "You have exceeded the number of allowed requests. Please try again later.",
                 "code": 429
-            }""";
-
-    static {
-        rateLimiterPathStrategies.put(ApiRoutes.PAYPAL_WEBHOOK_API_PATH, RateLimitingStrategy.IP);
-        rateLimiterPathStrategies.put(ApiRoutes.SUBSCRIPTION_PACKS_API_PATH, RateLimitingStrategy.IP);
-        rateLimiterPathStrategies.put(ApiRoutes.URL_SHORTENER_API_PATH, RateLimitingStrategy.USER_ID);
-        rateLimiterPathStrategies.put(ApiRoutes.SUBSCRIPTION_API_PATH, RateLimitingStrategy.USER_ID);
-        rateLimiterPathStrategies.put(ApiRoutes.STATISTICS_API_PATH, RateLimitingStrategy.USER_ID);
-        rateLimiterPathStrategies.put(ApiRoutes.PROFILE_API_PATH, RateLimitingStrategy.USER_ID);
-        rateLimiterPathStrategies.put(ApiRoutes.PAYMENT_API_PATH, RateLimitingStrategy.USER_ID);
-        rateLimiterPathStrategies.put(ApiRoutes.AUTH_API_PATH, RateLimitingStrategy.IP);
-        rateLimiterPathStrategies.put(ApiRoutes.GENERIC_API_PATH, RateLimitingStrategy.IP);
-    }
+            }""");
 
-    private final RateLimiter rateLimiter;
+
+    private final ReactiveRateLimiter rateLimiter;
+    private final HeavyHittersTracker heavyHittersTracker;
 
     @Override
-    @SuppressWarnings("squid:S135")
     public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final var rule = findRateLimitRule(exchange);
+
+        if (rule == null) {
+            return chain.filter(exchange);
+        }
+
         final var requestPath = exchange.getRequest().getURI().getPath();
+        final String identifier;
+        final Mono<RateLimitDecision> decision;
 
-        for (final var pathStrategy : rateLimiterPathStrategies.entrySet()) {
-            if (!pathMatcher.match(pathStrategy.getKey(), requestPath)) {
-                continue;
-            }
+        if (rule.strategy() == RateLimitingStrategy.USER_ID) {
+            final var userId = extractUserIdFromRequestHeader(exchange.getRequest().getHeaders());
 
-            final boolean isRateLimited;
+            if (userId.isEmpty()) {
+                return USER_ID_FETCH_FAILURE_RESPONSE.write(exchange);
+            }
 
-            if (pathStrategy.getValue() == RateLimitingStrategy.USER_ID) {
-                final var userId = extractUserIdFromRequestHeader(exchange.getRequest().getHeaders());
+            identifier = userId.get();
+            decision = rateLimiter.tryAcquire(rule.apiRoute(), requestPath, identifier);
+        } else if (rule.strategy() == RateLimitingStrategy.IP) {
+            final var clientIp = extractClientIp(exchange);
 
-                if (userId.isEmpty()) {
-                    final var httpResponse = exchange.getResponse();
-                    httpResponse.setStatusCode(HttpStatus.UNAUTHORIZED);
-                    httpResponse.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-                    return httpResponse.writeWith(Mono.just(httpResponse.bufferFactory().wrap(USER_ID_FETCH_FAILURE_RESPONSE.getBytes())));
-                }
+            if (clientIp.isEmpty()) {
+                return IP_FETCH_FAILURE_RESPONSE.write(exchange);
+            }
 
-                isRateLimited = rateLimiter.isRateLimited(pathStrategy.getKey(), requestPath, userId.get());
-            } else if (pathStrategy.getValue() == RateLimitingStrategy.IP) {
-                final var clientIp = extractClientIp(exchange);
+            identifier = clientIp.get();
+            decision = rateLimiter.tryAcquire(rule.apiRoute(), requestPath, identifier);
+        } else {
+            identifier = null;
+            decision = Mono.just(new RateLimitDecision(false, 0, 0, 0));
+        }
 
-                if (clientIp.isEmpty()) {
-                    final var httpResponse = exchange.getResponse();
-                    httpResponse.setStatusCode(HttpStatus.BAD_REQUEST);
-                    httpResponse.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-                    return httpResponse.writeWith(Mono.just(httpResponse.bufferFactory().wrap(IP_FETCH_FAILURE_RESPONSE.getBytes())));
-                }
+        return decision.flatMap(rateLimitDecision -> {
+            addRateLimitHeaders(exchange.getResponse().getHeaders(), rateLimitDecision);
 
-                isRateLimited = rateLimiter.isRateLimited(pathStrategy.getKey(), requestPath, clientIp.get());
-            } else {
-                isRateLimited = true;
+            if (!rateLimitDecision.allowed()) {
+                heavyHittersTracker.record(HeavyHittersTracker.Category.RATE_LIMITED, identifier);
+                return RATE_LIMIT_EXCEEDED_RESPONSE.write(exchange);
             }
 
-            if (isRateLimited) {
-                final var httpResponse = exchange.getResponse();
-                httpResponse.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-                httpResponse.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-                return httpResponse.writeWith(Mono.just(httpResponse.bufferFactory().wrap(RATE_LIMIT_EXCEEDED_RESPONSE.getBytes())));
+            return chain.filter(exchange);
+        });
+    }
+
+    /**
+     * Resolves the rate limit rule of the request from the id of the matched gateway route. Path patterns are only
+     * evaluated when the route has more than one candidate rule or is unknown, against the already parsed request
+     * path, so the common case performs a single map lookup.
+     *
+     * @return the matching rule, or {@code null} if the request is not rate limited
+     */
+    static RateLimitRule findRateLimitRule(final ServerWebExchange exchange) {
+        final Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        final var candidates = route != null ? routeRateLimitRules.getOrDefault(route.getId(), rateLimitRules) : rateLimitRules;
+
+        if (candidates.size() == 1) {
+            return candidates.getFirst();
+        }
+
+        final var path = exchange.getRequest().getPath().pathWithinApplication();
+
+        for (int i = 0; i < candidates.size(); i++) {
+            final var candidate = candidates.get(i);
+
+            if (candidate.pathPattern().matches(path)) {
+                return candidate;
             }
+        }
+
+        return null;
+    }
 
-            break;
+    private static RateLimitRule rule(final String apiRoute, final RateLimitingStrategy strategy) {
+        return new RateLimitRule(apiRoute, PathPatternParser.defaultInstance.parse(apiRoute), strategy);
+    }
+
+    private void addRateLimitHeaders(final HttpHeaders headers, final RateLimitDecision decision) {
+        if (!decision.isLimited()) {
+            return;
+        }
+
+        final var resetAfterSeconds = String.valueOf((decision.resetAfterMillis() + 999) / 1000);
+        headers.set(RATE_LIMIT_LIMIT_HEADER_NAME, String.valueOf(decision.limit()));
+        headers.set(RATE_LIMIT_REMAINING_HEADER_NAME, String.valueOf(decision.remaining()));
+        headers.set(RATE_LIMIT_RESET_HEADER_NAME, resetAfterSeconds);
+
+        if (!decision.allowed()) {
+            headers.set(HttpHeaders.RETRY_AFTER, resetAfterSeconds);
         }
+    }
 
-        return chain.filter(exchange);
+    /**
+     * Rate limit configuration of an API route: the configured path (key of the rate limiter configuration), its
+     * precompiled pattern and the strategy used to identify the client.
+     */
+    record RateLimitRule(String apiRoute, PathPattern pathPattern, RateLimitingStrategy strategy) {
     }
 
 }
@@ -0,0 +1,62 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.cache.RedirectCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers GET requests of the public short URL route from the {@link RedirectCache} and stores the redirects
+ * returned by the URL shortener service.
+ * <p>
+ * The response is captured just before it is committed, when its status and headers are final, so the proxied
+ * body is never buffered.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedirectCacheFilter implements GatewayFilter {
+
+    private final RedirectCache redirectCache;
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final var request = exchange.getRequest();
+
+        if (!redirectCache.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        final var key = cacheKey(request);
+        final var cachedRedirect = redirectCache.get(key);
+        final var response = exchange.getResponse();
+
+        if (cachedRedirect != null) {
+            response.setStatusCode(cachedRedirect.status());
+            response.getHeaders().addAll(cachedRedirect.headers());
+            return response.setComplete();
+        }
+
+        response.beforeCommit(() -> {
+            if (redirectCache.put(key, response.getStatusCode(), response.getHeaders())) {
+                log.debug("Cached redirect for {}", key);
+            }
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange);
+    }
+
+    static String cacheKey(final ServerHttpRequest request) {
+        final var uri = request.getURI();
+        final var rawQuery = uri.getRawQuery();
+        return rawQuery == null ? uri.getRawPath() : uri.getRawPath() + '?' + rawQuery;
+    }
+
+}
@@ -1,18 +1,32 @@
 package com.akgarg.us.apigw.filter;
 
+import com.akgarg.us.apigw.utils.RequestIdGenerator;
 import jakarta.annotation.Nonnull;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.logging.log4j.ThreadContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.util.UUID;
-
+/**
+ * Assigns every request an id, taken from the {@value #REQUEST_ID_HEADER_NAME} request header or generated with
+ * {@link RequestIdGenerator}, and returns it in the response header of the same name.
+ * <p>
+ * The id is stored as the {@value #REQUEST_ID_ATTRIBUTE_NAME} exchange attribute instead of rebuilding the request
+ * with an extra header; read it with {@link #getRequestId(ServerWebExchange)}. Generated ids are added to proxied
+ * requests by {@link RequestIdHeadersFilter}. Within the filter chain the id is also available from the Reactor
+ * context under the same key, and in the log4j ThreadContext through
+ * {@link com.akgarg.us.apigw.logging.RequestIdThreadLocalAccessor}.
+ * <p>
+ * The filter runs first, ahead of the security filter chain, so authentication and authorization failures report
+ * the same id.
+ */
 @Slf4j
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class RequestIdFilter implements WebFilter {
 
     public static final String REQUEST_ID_HEADER_NAME = "X-Request-ID";
@@ -20,25 +34,27 @@ public class RequestIdFilter implements WebFilter {
 
     @Override
     public Mono<Void> filter(@Nonnull final ServerWebExchange exchange, @Nonnull final WebFilterChain chain) {
-        final var request = exchange.getRequest();
-        final var response = exchange.getResponse();
-
-        var requestId = request.getHeaders().getFirst(REQUEST_ID_HEADER_NAME);
+        var requestId = exchange.getRequest().getHeaders().getFirst(REQUEST_ID_HEADER_NAME);
 
         if (requestId == null || requestId.isEmpty()) {
-            requestId = UUID.randomUUID().toString();
+            requestId = RequestIdGenerator.generate();
         }
 
-        response.getHeaders().add(REQUEST_ID_HEADER_NAME, requestId);
+        exchange.getAttributes().put(REQUEST_ID_ATTRIBUTE_NAME, requestId);
+        exchange.getResponse().getHeaders().add(REQUEST_ID_HEADER_NAME, requestId);
 
         final var finalRequestId = requestId;
 
-        return chain.filter(exchange.mutate()
-                        .request(builder -> builder.header(REQUEST_ID_HEADER_NAME, finalRequestId).build())
-                        .build())
-                .doOnEach(signal -> ThreadContext.put(REQUEST_ID_ATTRIBUTE_NAME, finalRequestId))
-                .contextWrite(ctx -> ctx.put(REQUEST_ID_ATTRIBUTE_NAME, finalRequestId))
-                .doFinally(signalType -> ThreadContext.remove(REQUEST_ID_ATTRIBUTE_NAME));
+        // the log4j ThreadContext is populated from the Reactor context by RequestIdThreadLocalAccessor
+        return chain.filter(exchange)
+                .contextWrite(ctx -> ctx.put(REQUEST_ID_ATTRIBUTE_NAME, finalRequestId));
+    }
+
+    /**
+     * Returns the id of the request, or {@code null} if the exchange has not passed this filter.
+     */
+    public static String getRequestId(final ServerWebExchange exchange) {
+        return exchange.getAttribute(REQUEST_ID_ATTRIBUTE_NAME);
     }
 
 }
@@ -0,0 +1,32 @@
+package com.akgarg.us.apigw.filter;
+
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_HEADER_NAME;
+
+/**
+ * Adds the request id assigned by {@link RequestIdFilter} to the headers of the proxied request. The gateway copies
+ * the request headers for the downstream call anyway, so the headers are only copied once more when the id was
+ * generated by the gateway rather than sent by the client.
+ */
+@Component
+public class RequestIdHeadersFilter implements HttpHeadersFilter {
+
+    @Override
+    public HttpHeaders filter(final HttpHeaders input, final ServerWebExchange exchange) {
+        final var requestId = RequestIdFilter.getRequestId(exchange);
+
+        if (requestId == null || requestId.equals(input.getFirst(REQUEST_ID_HEADER_NAME))) {
+            return input;
+        }
+
+        final var filtered = new HttpHeaders();
+        filtered.addAll(input);
+        filtered.set(REQUEST_ID_HEADER_NAME, requestId);
+        return filtered;
+    }
+
+}
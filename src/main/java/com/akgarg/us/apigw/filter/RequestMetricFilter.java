@@ -1,13 +1,18 @@
 package com.akgarg.us.apigw.filter;
 
+import com.akgarg.us.apigw.logging.AccessLogger;
+import com.akgarg.us.apigw.metrics.HeavyHittersTracker;
 import com.akgarg.us.apigw.utils.IpUtils;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
@@ -15,72 +20,136 @@ import reactor.core.publisher.Mono;
 import reactor.core.publisher.SignalType;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
-import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_HEADER_NAME;
-
-@Slf4j
+/**
+ * {@code RequestMetricFilter} records the count and duration of every request.
+ * <p>
+ * Meters are tagged with the HTTP method, the id of the matched gateway route and the response status (or, with
+ * {@code metrics.requests.status-class=true}, the status class such as {@code 2xx}). All tag values come from
+ * bounded sets, so the number of meters does not grow with the number of distinct paths or clients. The meters of
+ * each tag combination are registered once and cached, so the request path only performs a map lookup.
+ * <p>
+ * Per-client statistics are not tagged on meters; client IPs and user ids are fed to the
+ * {@link HeavyHittersTracker} instead. The access log line is handed to the asynchronous {@link AccessLogger}.
+ */
 @Component
-@RequiredArgsConstructor
 public class RequestMetricFilter implements GlobalFilter, Ordered {
 
+    static final String REQUESTS_COUNTER_NAME = "urlshortener_api_gateway_requests_total";
+    static final String REQUEST_DURATION_TIMER_NAME = "urlshortener_api_gateway_request_duration";
+    static final String UNMATCHED_ROUTE = "unmatched";
+    static final String OTHER_METHOD = "OTHER";
+
+    private static final Set<String> KNOWN_METHODS = Arrays.stream(HttpMethod.values())
+            .map(HttpMethod::name)
+            .collect(Collectors.toUnmodifiableSet());
+
     private final MeterRegistry meterRegistry;
+    private final HeavyHittersTracker heavyHittersTracker;
+    private final AccessLogger accessLogger;
+    private final boolean statusClassTag;
+    private final Map<MeterKey, RequestMeters> requestMeters = new ConcurrentHashMap<>();
+
+    public RequestMetricFilter(final MeterRegistry meterRegistry,
+                               final HeavyHittersTracker heavyHittersTracker,
+                               final AccessLogger accessLogger,
+                               final Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.heavyHittersTracker = heavyHittersTracker;
+        this.accessLogger = accessLogger;
+        this.statusClassTag = Boolean.parseBoolean(environment.getProperty("metrics.requests.status-class", "false"));
+    }
 
     @Override
     public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
         final var startTime = System.currentTimeMillis();
+        final var clientIp = IpUtils.extractClientIp(exchange).orElse("0.0.0.0");
+
+        heavyHittersTracker.record(HeavyHittersTracker.Category.CLIENT_IP, clientIp);
+        heavyHittersTracker.record(HeavyHittersTracker.Category.USER_ID,
+                exchange.getRequest().getHeaders().getFirst(AbstractApiGatewayFilter.USER_ID_HEADER_NAME));
 
         return chain.filter(exchange)
                 .doFinally(signalType -> {
                     if (signalType == SignalType.ON_COMPLETE || signalType == SignalType.ON_ERROR) {
-                        final var requestPath = exchange.getRequest().getURI().getPath();
                         final var method = exchange.getRequest().getMethod().name();
-                        final var clientIp = IpUtils.extractClientIp(exchange).orElse("0.0.0.0");
                         final var statusCode = exchange.getResponse().getStatusCode() != null ? exchange.getResponse().getStatusCode().value() : HttpStatus.OK.value();
                         final var duration = System.currentTimeMillis() - startTime;
-                        final var requestId = exchange.getRequest().getHeaders().getFirst(REQUEST_ID_HEADER_NAME);
-
-                        meterRegistry.counter(
-                                "urlshortener_api_gateway_requests_total",
-                                "method", method,
-                                "path", requestPath,
-                                "status", String.valueOf(statusCode),
-                                "client_ip", clientIp
-                        ).increment();
-
-                        Timer.builder("urlshortener_api_gateway_request_duration")
-                                .tags("method", method,
-                                        "path", requestPath,
-                                        "status", String.valueOf(statusCode),
-                                        "client_ip", clientIp)
-                                .publishPercentileHistogram()
-                                .sla(Duration.ofMillis(100),
-                                        Duration.ofMillis(300),
-                                        Duration.ofMillis(500),
-                                        Duration.ofSeconds(1),
-                                        Duration.ofSeconds(3),
-                                        Duration.ofSeconds(5),
-                                        Duration.ofSeconds(10))
-                                .register(meterRegistry)
-                                .record(duration, TimeUnit.MILLISECONDS);
-
-                        if (log.isInfoEnabled()) {
-                            log.info("requestId: {}, method: {}, path: {}, client_ip: {}, status_code: {}, response_time_ms: {}",
-                                    requestId,
-                                    method,
-                                    requestPath,
-                                    clientIp,
-                                    statusCode,
-                                    duration
-                            );
-                        }
+                        final var meters = getRequestMeters(method, getRouteId(exchange), statusCode);
+
+                        meters.counter().increment();
+                        meters.timer().record(duration, TimeUnit.MILLISECONDS);
+
+                        accessLogger.log(
+                                RequestIdFilter.getRequestId(exchange),
+                                method,
+                                exchange.getRequest().getURI().getPath(),
+                                clientIp,
+                                statusCode,
+                                duration
+                        );
                     }
                 });
     }
 
+    private RequestMeters getRequestMeters(final String method, final String routeId, final int statusCode) {
+        final var key = new MeterKey(
+                KNOWN_METHODS.contains(method) ? method : OTHER_METHOD,
+                routeId,
+                statusClassTag ? (statusCode / 100) + "xx" : String.valueOf(statusCode)
+        );
+        final var meters = requestMeters.get(key);
+        return meters != null ? meters : requestMeters.computeIfAbsent(key, this::registerRequestMeters);
+    }
+
+    private RequestMeters registerRequestMeters(final MeterKey key) {
+        final var counter = Counter.builder(REQUESTS_COUNTER_NAME)
+                .tags("method", key.method(),
+                        "route", key.route(),
+                        "status", key.status())
+                .register(meterRegistry);
+
+        final var timer = Timer.builder(REQUEST_DURATION_TIMER_NAME)
+                .tags("method", key.method(),
+                        "route", key.route(),
+                        "status", key.status())
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(Duration.ofMillis(100),
+                        Duration.ofMillis(300),
+                        Duration.ofMillis(500),
+                        Duration.ofSeconds(1),
+                        Duration.ofSeconds(3),
+                        Duration.ofSeconds(5),
+                        Duration.ofSeconds(10))
+                .register(meterRegistry);
+
+        return new RequestMeters(counter, timer);
+    }
+
+    private static String getRouteId(final ServerWebExchange exchange) {
+        final Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : UNMATCHED_ROUTE;
+    }
+
+    int cachedMeterCount() {
+        return requestMeters.size();
+    }
+
     @Override
     public int getOrder() {
         return -1;
     }
 
+    private record MeterKey(String method, String route, String status) {
+    }
+
+    private record RequestMeters(Counter counter, Timer timer) {
+    }
+
 }
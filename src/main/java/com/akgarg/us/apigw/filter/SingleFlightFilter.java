@@ -0,0 +1,203 @@
+package com.akgarg.us.apigw.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code SingleFlightFilter} coalesces concurrent identical GET requests of a route into one upstream call.
+ * <p>
+ * The first request for a key (method, path, query and the headers listed in {@code single-flight.key-headers})
+ * is proxied as usual. Identical requests arriving while it is in flight wait for its response instead. If the
+ * response carries no body ({@code 204}, {@code 304} or {@code Content-Length: 0}) and sets no cookies, its status and
+ * headers are written to every waiter. Otherwise, or if the first request fails, each waiter is proxied on its own.
+ * <p>
+ * At most {@code single-flight.max-waiters} requests wait for one call; further requests and waiters that time out
+ * after {@code single-flight.timeout-ms} are proxied on their own as well. Requests carrying credentials
+ * ({@code Authorization} or {@code Cookie}) are never coalesced. The filter is opt-in: add it to a route in
+ * {@code RoutesConfigurer}.
+ */
+@Slf4j
+@Component
+public class SingleFlightFilter implements GatewayFilter {
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxWaiters;
+    private final Duration timeout;
+    private final List<String> keyHeaders;
+    private final Counter coalescedCounter;
+    private final Counter fallbackCounter;
+
+    public SingleFlightFilter(final Environment environment, final MeterRegistry meterRegistry) {
+        this.enabled = Boolean.parseBoolean(environment.getProperty("single-flight.enabled", "true"));
+        this.maxWaiters = Integer.parseInt(environment.getProperty("single-flight.max-waiters", "1000"));
+        this.timeout = Duration.ofMillis(Long.parseLong(environment.getProperty("single-flight.timeout-ms", "2000")));
+        this.keyHeaders = Arrays.stream(environment.getProperty("single-flight.key-headers", "").split(","))
+                .map(String::trim)
+                .filter(header -> !header.isEmpty())
+                .toList();
+        this.coalescedCounter = Counter.builder("urlshortener_api_gateway_single_flight_coalesced_total")
+                .description("Number of requests answered with the response of an identical in-flight request")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("urlshortener_api_gateway_single_flight_fallback_total")
+                .description("Number of requests that waited for an identical in-flight request but had to be proxied on their own")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final var request = exchange.getRequest();
+
+        if (!enabled || request.getMethod() != HttpMethod.GET ||
+                request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION) ||
+                request.getHeaders().containsKey(HttpHeaders.COOKIE)) {
+            return chain.filter(exchange);
+        }
+
+        final var key = flightKey(request);
+        final var flight = new Flight();
+        final var inFlight = flights.putIfAbsent(key, flight);
+
+        if (inFlight == null) {
+            return lead(exchange, chain, key, flight);
+        }
+
+        if (!inFlight.tryJoin(maxWaiters)) {
+            return chain.filter(exchange);
+        }
+
+        return inFlight.result()
+                .timeout(timeout, Mono.just(Optional.empty()))
+                .flatMap(sharedResponse -> {
+                    if (sharedResponse.isEmpty()) {
+                        fallbackCounter.increment();
+                        return chain.filter(exchange);
+                    }
+
+                    coalescedCounter.increment();
+                    return sharedResponse.get().writeTo(exchange.getResponse());
+                });
+    }
+
+    private Mono<Void> lead(final ServerWebExchange exchange,
+                            final GatewayFilterChain chain,
+                            final String key,
+                            final Flight flight) {
+        final var response = exchange.getResponse();
+        // headers set by the gateway for this request only (request id, rate limit) must not be shared
+        final Set<String> gatewayHeaders = new HashSet<>(response.getHeaders().keySet());
+
+        response.beforeCommit(() -> {
+            flight.capture(response, gatewayHeaders);
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange)
+                .doFinally(signalType -> {
+                    flights.remove(key, flight);
+                    flight.complete(signalType == SignalType.ON_COMPLETE);
+                });
+    }
+
+    private String flightKey(final ServerHttpRequest request) {
+        final var uri = request.getURI();
+        final var key = new StringBuilder(request.getMethod().name())
+                .append(' ')
+                .append(uri.getRawPath());
+
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+
+        for (final var header : keyHeaders) {
+            key.append('\n').append(header).append(':').append(request.getHeaders().getOrEmpty(header));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * An in-flight upstream call and the requests waiting for it.
+     */
+    private static final class Flight {
+
+        private final Sinks.One<Optional<SharedResponse>> result = Sinks.one();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private volatile SharedResponse sharedResponse;
+
+        private boolean tryJoin(final int maxWaiters) {
+            return waiters.incrementAndGet() <= maxWaiters;
+        }
+
+        private Mono<Optional<SharedResponse>> result() {
+            return result.asMono();
+        }
+
+        private void capture(final ServerHttpResponse response, final Set<String> gatewayHeaders) {
+            final var status = response.getStatusCode();
+            final var headers = response.getHeaders();
+
+            if (status == null || headers.containsKey(HttpHeaders.SET_COOKIE) || !isBodyless(status, headers)) {
+                return;
+            }
+
+            final var sharedHeaders = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (!gatewayHeaders.contains(name)) {
+                    sharedHeaders.addAll(name, values);
+                }
+            });
+
+            sharedResponse = new SharedResponse(status, HttpHeaders.readOnlyHttpHeaders(sharedHeaders));
+        }
+
+        private void complete(final boolean successful) {
+            result.tryEmitValue(successful ? Optional.ofNullable(sharedResponse) : Optional.empty());
+        }
+
+        /**
+         * Only responses known to carry no body are shared: a redirect may come with a body (and a
+         * {@code Content-Length} promising it) that a waiter would never receive.
+         */
+        private static boolean isBodyless(final HttpStatusCode status, final HttpHeaders headers) {
+            return status.value() == 204 || status.value() == 304 ||
+                    (headers.getContentLength() == 0 && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING));
+        }
+
+    }
+
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers) {
+
+        private Mono<Void> writeTo(final ServerHttpResponse response) {
+            response.setStatusCode(status);
+            response.getHeaders().addAll(headers);
+            return response.setComplete();
+        }
+
+    }
+
+}
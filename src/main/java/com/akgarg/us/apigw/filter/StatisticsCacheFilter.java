@@ -0,0 +1,130 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.cache.StatisticsResponseCache;
+import com.akgarg.us.apigw.utils.HeaderUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Serves GET requests of the statistics route from the {@link StatisticsResponseCache}.
+ * <p>
+ * The filter runs after {@link AuthTokenFilter}, so only requests whose token was validated read or fill the cache.
+ * Fresh entries are served as is. Stale entries are served while the response is fetched again in the background
+ * through the load balanced statistics service client, forwarding the headers of the request that triggered it.
+ * On a miss the proxied body is copied by a {@link BodyCapturingResponseDecorator} and stored if cacheable.
+ */
+@Slf4j
+@Component
+public class StatisticsCacheFilter extends AbstractApiGatewayFilter {
+
+    private final StatisticsResponseCache statisticsResponseCache;
+    private final WebClient statisticsServiceWebClient;
+    private final Duration revalidationTimeout;
+    private final Counter revalidationSuccessCounter;
+    private final Counter revalidationNotStoredCounter;
+    private final Counter revalidationFailureCounter;
+
+    public StatisticsCacheFilter(final StatisticsResponseCache statisticsResponseCache,
+                                 @Qualifier("statisticsServiceWebClientBuilder") final WebClient.Builder statisticsServiceWebClientBuilder,
+                                 final Environment environment,
+                                 final MeterRegistry meterRegistry) {
+        this.statisticsResponseCache = statisticsResponseCache;
+        this.statisticsServiceWebClient = statisticsServiceWebClientBuilder.build();
+        this.revalidationTimeout = Duration.ofMillis(Long.parseLong(environment.getProperty("statistics-cache.revalidation-timeout-ms", "5000")));
+        this.revalidationSuccessCounter = revalidationCounter(meterRegistry, "success");
+        this.revalidationNotStoredCounter = revalidationCounter(meterRegistry, "not_stored");
+        this.revalidationFailureCounter = revalidationCounter(meterRegistry, "failure");
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final var request = exchange.getRequest();
+
+        if (!statisticsResponseCache.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        final var userId = extractUserIdFromRequestHeader(request.getHeaders());
+
+        if (userId.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        final var key = cacheKey(userId.get(), request);
+        final var cachedResponse = statisticsResponseCache.get(key);
+
+        if (cachedResponse != null) {
+            if (statisticsResponseCache.isStale(cachedResponse) && statisticsResponseCache.startRevalidation(key)) {
+                revalidate(key, userId.get(), request);
+            }
+
+            return BodyCapturingResponseDecorator.writeCached(
+                    exchange.getResponse(),
+                    cachedResponse.status(),
+                    cachedResponse.headers(),
+                    cachedResponse.body()
+            );
+        }
+
+        final var cachingResponse = new BodyCapturingResponseDecorator(
+                exchange.getResponse(),
+                statisticsResponseCache.getPerUserMaxBytes(),
+                (status, headers, body) -> statisticsResponseCache.put(key, userId.get(), status, headers, body)
+        );
+        return chain.filter(exchange.mutate().response(cachingResponse).build());
+    }
+
+    private void revalidate(final String key, final String userId, final ServerHttpRequest request) {
+        final var uri = request.getURI();
+        final var pathAndQuery = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + '?' + uri.getRawQuery();
+
+        statisticsServiceWebClient.get()
+                .uri(pathAndQuery)
+                .headers(headers -> HeaderUtils.copyForwardableHeaders(request.getHeaders(), headers))
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> statisticsResponseCache.put(key, userId, response.statusCode(), response.headers().asHttpHeaders(), body)))
+                .timeout(revalidationTimeout)
+                .doFinally(signalType -> statisticsResponseCache.finishRevalidation(key))
+                .subscribe(
+                        stored -> (stored ? revalidationSuccessCounter : revalidationNotStoredCounter).increment(),
+                        e -> {
+                            revalidationFailureCounter.increment();
+                            log.warn("Failed to revalidate statistics response {}: {}", pathAndQuery, e.getMessage());
+                        }
+                );
+    }
+
+    static String cacheKey(final String userId, final ServerHttpRequest request) {
+        final var uri = request.getURI();
+        final var key = new StringBuilder(userId).append('\n').append(uri.getRawPath());
+
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+
+        final var acceptEncoding = request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding == null ? key.toString() : key.append('\n').append(acceptEncoding).toString();
+    }
+
+    private static Counter revalidationCounter(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder("urlshortener_api_gateway_statistics_cache_revalidations_total")
+                .description("Number of background revalidations of stale statistics responses")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.cache.SubscriptionPacksCache;
+import com.akgarg.us.apigw.config.ApiRoutes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Serves GET requests of the subscription pack catalog from the {@link SubscriptionPacksCache} and invalidates the
+ * cache when an admin change of the packs succeeds.
+ * <p>
+ * Applied to both the public catalog route and the subscription service route that carries the admin
+ * {@code POST}, {@code PATCH} and {@code DELETE} calls. A mutation invalidates every cached pack response, since
+ * changing one pack also changes the listings containing it. The invalidation runs just before the mutation response
+ * is committed, once its {@code 2xx} status is known.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubscriptionPacksCacheFilter implements GatewayFilter {
+
+    private static final PathPattern SUBSCRIPTION_PACKS_PATTERN = PathPatternParser.defaultInstance.parse(ApiRoutes.SUBSCRIPTION_PACKS_API_PATH);
+    private static final String SUBSCRIPTION_PACKS_PREFIX = ApiRoutes.SUBSCRIPTION_PACKS_API_PATH.replace("/**", "");
+    private static final Set<HttpMethod> MUTATION_METHODS = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final SubscriptionPacksCache subscriptionPacksCache;
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final var request = exchange.getRequest();
+
+        if (!subscriptionPacksCache.isEnabled() || !SUBSCRIPTION_PACKS_PATTERN.matches(request.getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+
+        if (MUTATION_METHODS.contains(request.getMethod())) {
+            final var response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                final var status = response.getStatusCode();
+
+                if (status != null && status.is2xxSuccessful()) {
+                    log.debug("Subscription packs changed by {} {}", request.getMethod(), request.getPath());
+                    subscriptionPacksCache.invalidate(SUBSCRIPTION_PACKS_PREFIX);
+                }
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        }
+
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        final var key = cacheKey(request);
+        final var cachedResponse = subscriptionPacksCache.get(key);
+
+        if (cachedResponse != null) {
+            return BodyCapturingResponseDecorator.writeCached(
+                    exchange.getResponse(),
+                    cachedResponse.status(),
+                    cachedResponse.headers(),
+                    cachedResponse.body()
+            );
+        }
+
+        final var generation = subscriptionPacksCache.generation();
+        final var cachingResponse = new BodyCapturingResponseDecorator(
+                exchange.getResponse(),
+                subscriptionPacksCache.getMaxBodyBytes(),
+                (status, headers, body) -> subscriptionPacksCache.put(key, generation, status, headers, body)
+        );
+        return chain.filter(exchange.mutate().response(cachingResponse).build());
+    }
+
+    /**
+     * Builds the cache key from path, query and {@code Accept-Encoding}, since the stored response keeps its
+     * {@code Content-Encoding}. The key starts with the path, so entries can be invalidated by path prefix.
+     */
+    static String cacheKey(final ServerHttpRequest request) {
+        final var uri = request.getURI();
+        final var key = new StringBuilder(uri.getRawPath());
+
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+
+        final var acceptEncoding = request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding == null ? key.toString() : key.append('\n').append(acceptEncoding).toString();
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.cache.KnownShortCodes;
+import com.akgarg.us.apigw.cache.NotFoundCache;
+import com.akgarg.us.apigw.error.PreEncodedResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers GET requests of the public short URL route for unknown short codes with {@code 404} at the gateway.
+ * <p>
+ * A path is answered locally if the URL shortener service returned {@code 404} for it within the TTL of the
+ * {@link NotFoundCache}, or if it is a single segment that is certainly not in {@link KnownShortCodes}. Every other
+ * request is proxied, and {@code 404} responses are recorded in the negative cache just before they are committed.
+ */
+@Component
+public class UnknownShortCodeFilter implements GatewayFilter {
+
+    private final NotFoundCache notFoundCache;
+    private final KnownShortCodes knownShortCodes;
+    private final PreEncodedResponse notFoundResponse;
+    private final Counter negativeCacheCounter;
+    private final Counter knownCodesCounter;
+
+    public UnknownShortCodeFilter(final NotFoundCache notFoundCache,
+                                  final KnownShortCodes knownShortCodes,
+                                  final ObjectMapper objectMapper,
+                                  final MeterRegistry meterRegistry) {
+        this.notFoundCache = notFoundCache;
+        this.knownShortCodes = knownShortCodes;
+        this.notFoundResponse = PreEncodedResponse.apiError(objectMapper, HttpStatus.NOT_FOUND, "Short URL not found");
+        this.negativeCacheCounter = notFoundCounter(meterRegistry, "not_found_cache");
+        this.knownCodesCounter = notFoundCounter(meterRegistry, "known_codes");
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+        final var request = exchange.getRequest();
+
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        final var path = request.getURI().getRawPath();
+
+        if (notFoundCache.isEnabled() && notFoundCache.contains(path)) {
+            negativeCacheCounter.increment();
+            return notFoundResponse.write(exchange, RequestIdFilter.getRequestId(exchange));
+        }
+
+        final var shortCode = shortCode(path);
+
+        if (shortCode != null && !knownShortCodes.mightExist(shortCode)) {
+            knownCodesCounter.increment();
+            return notFoundResponse.write(exchange, RequestIdFilter.getRequestId(exchange));
+        }
+
+        if (notFoundCache.isEnabled()) {
+            final var response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                final var status = response.getStatusCode();
+
+                if (status != null && status.value() == HttpStatus.NOT_FOUND.value()) {
+                    notFoundCache.put(path);
+                }
+                return Mono.empty();
+            });
+        }
+
+        return chain.filter(exchange);
+    }
+
+    /**
+     * Returns the short code of a single segment path such as {@code /abc123}, otherwise {@code null}.
+     */
+    static String shortCode(final String path) {
+        if (path == null || path.length() < 2 || path.charAt(0) != '/' || path.indexOf('/', 1) != -1) {
+            return null;
+        }
+
+        return path.substring(1);
+    }
+
+    private static Counter notFoundCounter(final MeterRegistry meterRegistry, final String source) {
+        return Counter.builder("urlshortener_api_gateway_short_code_not_found_total")
+                .description("Number of unknown short code lookups answered by the gateway")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code HedgePolicy} decides when a request is hedged: sent a second time to another instance because the first
+ * one is slow to answer.
+ * <p>
+ * The hedge delay is the {@code hedging.percentile} (default p95) of the latencies of the last
+ * {@code hedging.window-size} requests, recomputed every {@code hedging.refresh-ms} and never below
+ * {@code hedging.min-delay-ms}. No request is hedged until {@code hedging.min-samples} latencies were recorded.
+ * <p>
+ * Hedges are paid from a budget so they cannot amplify an overload: every request deposits
+ * {@code hedging.budget-ratio} (default 5%) of a hedge and every hedge withdraws a whole one. At most
+ * {@code hedging.budget-burst} hedges can be saved up.
+ */
+@Component
+public class HedgePolicy {
+
+    private static final String PREFIX = "hedging.";
+    private static final long MILLI_TOKENS_PER_HEDGE = 1000;
+
+    private final LoadBalancerStatsRegistry statsRegistry;
+    private final OutlierDetector outlierDetector;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final long refreshNanos;
+    private final long depositMilliTokens;
+    private final long maxMilliTokens;
+
+    private final AtomicLongArray samples;
+    private final AtomicLong sampleCount = new AtomicLong();
+    private final AtomicLong nextRefreshNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong budgetMilliTokens;
+    private volatile long hedgeDelayNanos = -1;
+
+    public HedgePolicy(final Environment environment,
+                       final MeterRegistry meterRegistry,
+                       final LoadBalancerStatsRegistry statsRegistry,
+                       final OutlierDetector outlierDetector) {
+        this.statsRegistry = statsRegistry;
+        this.outlierDetector = outlierDetector;
+        this.enabled = Boolean.parseBoolean(environment.getProperty(PREFIX + "enabled", "false"));
+        this.percentile = Double.parseDouble(environment.getProperty(PREFIX + "percentile", "0.95"));
+        this.minDelayNanos = Duration.ofMillis(Long.parseLong(environment.getProperty(PREFIX + "min-delay-ms", "5"))).toNanos();
+        this.minSamples = Integer.parseInt(environment.getProperty(PREFIX + "min-samples", "100"));
+        this.refreshNanos = Duration.ofMillis(Long.parseLong(environment.getProperty(PREFIX + "refresh-ms", "1000"))).toNanos();
+        this.samples = new AtomicLongArray(Integer.parseInt(environment.getProperty(PREFIX + "window-size", "1024")));
+
+        final var budgetRatio = Double.parseDouble(environment.getProperty(PREFIX + "budget-ratio", "0.05"));
+        final var budgetBurst = Long.parseLong(environment.getProperty(PREFIX + "budget-burst", "10"));
+        this.depositMilliTokens = Math.round(budgetRatio * MILLI_TOKENS_PER_HEDGE);
+        this.maxMilliTokens = budgetBurst * MILLI_TOKENS_PER_HEDGE;
+        this.budgetMilliTokens = new AtomicLong(maxMilliTokens);
+
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("hedging.percentile must be in (0, 1]: " + percentile);
+        }
+
+        Gauge.builder("urlshortener_api_gateway_hedging_delay_seconds", this, policy -> policy.hedgeDelayNanos / 1_000_000_000.0)
+                .description("Delay after which a request is hedged, or -1 while there are too few latency samples")
+                .register(meterRegistry);
+        Gauge.builder("urlshortener_api_gateway_hedging_budget", budgetMilliTokens, budget -> (double) budget.get() / MILLI_TOKENS_PER_HEDGE)
+                .description("Number of hedges that can be sent right now")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Deposits the share of a hedge a request pays into the budget. Called once for every request that may be
+     * hedged.
+     */
+    public void recordRequest() {
+        budgetMilliTokens.accumulateAndGet(depositMilliTokens, (budget, deposit) -> Math.min(maxMilliTokens, budget + deposit));
+    }
+
+    /**
+     * Withdraws one hedge from the budget.
+     *
+     * @return {@code false} if the budget is used up and the request must not be hedged
+     */
+    public boolean tryAcquireHedge() {
+        while (true) {
+            final var budget = budgetMilliTokens.get();
+
+            if (budget < MILLI_TOKENS_PER_HEDGE) {
+                return false;
+            }
+
+            if (budgetMilliTokens.compareAndSet(budget, budget - MILLI_TOKENS_PER_HEDGE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records the latency the client saw for a request, i.e. until the first of the request and its hedge
+     * answered.
+     */
+    public void recordLatency(final long latencyNanos) {
+        final var index = sampleCount.getAndIncrement() % samples.length();
+        samples.lazySet((int) index, latencyNanos);
+    }
+
+    /**
+     * Returns the delay after which a request is hedged, or {@code -1} if requests must not be hedged yet.
+     */
+    public long getHedgeDelayNanos() {
+        return getHedgeDelayNanos(System.nanoTime());
+    }
+
+    long getHedgeDelayNanos(final long now) {
+        final var nextRefresh = nextRefreshNanos.get();
+
+        if (now - nextRefresh >= 0 && nextRefreshNanos.compareAndSet(nextRefresh, now + refreshNanos)) {
+            hedgeDelayNanos = computeHedgeDelayNanos();
+        }
+
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * Picks the instance a hedge is sent to: the healthy instance with the lowest expected cost other than the one
+     * the request was sent to.
+     *
+     * @return the instance, or {@code null} if there is no other healthy instance
+     */
+    public ServiceInstance chooseHedgeInstance(final String serviceId,
+                                               final List<ServiceInstance> instances,
+                                               final ServiceInstance primaryInstance) {
+        final var primaryAddress = primaryInstance == null ? null : LoadBalancerStatsRegistry.instanceAddress(primaryInstance);
+        final var priorNanos = statsRegistry.getPriorLatencyNanos(serviceId);
+        ServiceInstance chosen = null;
+        var chosenCost = Double.MAX_VALUE;
+
+        for (final var instance : instances) {
+            if (LoadBalancerStatsRegistry.instanceAddress(instance).equals(primaryAddress) ||
+                    outlierDetector.getState(serviceId, instance) != OutlierDetector.State.HEALTHY) {
+                continue;
+            }
+
+            final var cost = statsRegistry.getStats(serviceId, instance).cost(priorNanos);
+
+            if (chosen == null || cost < chosenCost) {
+                chosen = instance;
+                chosenCost = cost;
+            }
+        }
+
+        return chosen;
+    }
+
+    private long computeHedgeDelayNanos() {
+        final var count = (int) Math.min(sampleCount.get(), samples.length());
+
+        if (count < minSamples) {
+            return -1;
+        }
+
+        final var latencies = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            latencies[i] = samples.get(i);
+        }
+
+        Arrays.sort(latencies);
+        final var rank = (int) Math.ceil(percentile * count) - 1;
+        return Math.max(minDelayNanos, latencies[Math.max(0, rank)]);
+    }
+
+}
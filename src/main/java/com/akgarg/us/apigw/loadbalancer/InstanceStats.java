@@ -0,0 +1,98 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live load of a single service instance: the number of requests in flight and an exponentially weighted moving
+ * average (EWMA) of its response latency.
+ * <p>
+ * The average decays with time rather than per sample: a sample taken {@code t} after the previous one has weight
+ * {@code 1 - exp(-t / decay)}, so an instance that turned slow is noticed within about one decay period regardless of
+ * its traffic.
+ */
+public final class InstanceStats {
+
+    private final long decayNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double ewmaNanos;
+    private volatile long lastSampleNanos;
+    private volatile boolean sampled;
+
+    InstanceStats(final long decayNanos) {
+        this.decayNanos = decayNanos;
+    }
+
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Ends a request started with {@link #start()}.
+     *
+     * @param latencyNanos the response latency, or a negative value if the request did not complete (e.g. it was
+     *                     cancelled) and must not be sampled
+     */
+    public void finish(final long latencyNanos) {
+        inFlight.decrementAndGet();
+
+        if (latencyNanos >= 0) {
+            record(latencyNanos, System.nanoTime());
+        }
+    }
+
+    synchronized void record(final long latencyNanos, final long nowNanos) {
+        if (!sampled) {
+            ewmaNanos = latencyNanos;
+            sampled = true;
+        } else {
+            final var weight = Math.exp(-(double) Math.max(0, nowNanos - lastSampleNanos) / decayNanos);
+            ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+        }
+
+        lastSampleNanos = nowNanos;
+    }
+
+    /**
+     * Returns the expected cost of sending one more request: the average latency scaled by the requests that would
+     * be in flight. Instances without samples are assumed to answer in {@code priorNanos}, so new instances get
+     * traffic right away but are still penalised for the requests already sent to them.
+     * <p>
+     * The average keeps decaying towards {@code priorNanos} while an instance gets no responses, so an instance
+     * avoided for being slow is eventually tried again and can prove it recovered.
+     *
+     * @param priorNanos the latency assumed for an instance nothing is known about, e.g. the median average of the
+     *                   other instances of the service
+     */
+    public double cost(final double priorNanos) {
+        return cost(priorNanos, System.nanoTime());
+    }
+
+    double cost(final double priorNanos, final long nowNanos) {
+        var latencyNanos = priorNanos;
+
+        if (sampled) {
+            final var idleNanos = Math.max(0, nowNanos - lastSampleNanos);
+            latencyNanos += (ewmaNanos - priorNanos) * Math.exp(-(double) idleNanos / decayNanos);
+        }
+
+        return latencyNanos * (inFlight.get() + 1);
+    }
+
+    boolean isSampled() {
+        return sampled;
+    }
+
+    double getEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    public double getEwmaSeconds() {
+        return ewmaNanos / 1_000_000_000.0;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
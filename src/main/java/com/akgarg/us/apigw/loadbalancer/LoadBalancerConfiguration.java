@@ -0,0 +1,48 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer of every {@code lb://} service, registered as the default configuration of the per-service
+ * load balancer contexts by {@code LoadBalancerClientsConfig}. It is deliberately not a {@code @Configuration}, so
+ * component scanning does not add it to the application context.
+ * <p>
+ * The algorithm is selected with {@code loadbalancer.algorithm} and per service with
+ * {@code loadbalancer.services.{serviceId}.algorithm}: {@code p2c-ewma} (default) or {@code round-robin}. Outlier
+ * ejection only applies to {@code p2c-ewma}.
+ */
+public class LoadBalancerConfiguration {
+
+    static final String P2C_EWMA = "p2c-ewma";
+    static final String ROUND_ROBIN = "round-robin";
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(final Environment environment,
+                                                                                  final LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                                  final LoadBalancerStatsRegistry statsRegistry,
+                                                                                  final OutlierDetector outlierDetector) {
+        final var serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        final var algorithm = algorithm(environment, serviceId);
+        final var serviceInstanceListSupplierProvider = loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+
+        return switch (algorithm) {
+            case P2C_EWMA -> new P2cEwmaLoadBalancer(serviceInstanceListSupplierProvider, serviceId, statsRegistry, outlierDetector);
+            case ROUND_ROBIN -> new RoundRobinLoadBalancer(serviceInstanceListSupplierProvider, serviceId);
+            default -> throw new IllegalArgumentException("Unknown load balancer algorithm for " + serviceId + ": " + algorithm);
+        };
+    }
+
+    static String algorithm(final Environment environment, final String serviceId) {
+        return environment.getProperty(
+                "loadbalancer.services." + serviceId + ".algorithm",
+                environment.getProperty("loadbalancer.algorithm", P2C_EWMA)
+        );
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code LoadBalancerStatsRegistry} holds the {@link InstanceStats} of every instance the gateway proxies to and
+ * publishes them as the {@code urlshortener_api_gateway_lb_instance_latency_seconds} and
+ * {@code urlshortener_api_gateway_lb_instance_in_flight} gauges, tagged with the service and instance.
+ * <p>
+ * The EWMA decay is configured with {@code loadbalancer.ewma-decay-ms} and per service with
+ * {@code loadbalancer.services.{serviceId}.ewma-decay-ms}. Instances that leave service discovery are dropped
+ * together with their gauges.
+ * <p>
+ * Instances without samples are assumed to be as fast as the median instance of their service, recomputed at most
+ * every {@code loadbalancer.prior-refresh-ms}. Until any instance of a service was sampled, they are assumed to
+ * answer in {@code loadbalancer.initial-latency-ms}.
+ */
+@Slf4j
+@Component
+public class LoadBalancerStatsRegistry {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Prior> priors = new ConcurrentHashMap<>();
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final String defaultDecayMs;
+    private final double initialLatencyNanos;
+    private final long priorRefreshNanos;
+
+    public LoadBalancerStatsRegistry(final Environment environment, final MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.defaultDecayMs = environment.getProperty("loadbalancer.ewma-decay-ms", "10000");
+        this.initialLatencyNanos = Duration.ofMillis(Long.parseLong(environment.getProperty("loadbalancer.initial-latency-ms", "10"))).toNanos();
+        this.priorRefreshNanos = Duration.ofMillis(Long.parseLong(environment.getProperty("loadbalancer.prior-refresh-ms", "1000"))).toNanos();
+    }
+
+    public InstanceStats getStats(final String serviceId, final ServiceInstance instance) {
+        final var key = key(serviceId, instance);
+        final var entry = entries.get(key);
+        return entry != null ? entry.stats() : entries.computeIfAbsent(key, k -> createEntry(serviceId, instance)).stats();
+    }
+
+    /**
+     * Returns the latency assumed for an instance of {@code serviceId} without samples, to be passed to
+     * {@link InstanceStats#cost(double)}: the median latency average of the sampled instances of the service.
+     */
+    public double getPriorLatencyNanos(final String serviceId) {
+        final var prior = priors.computeIfAbsent(serviceId, id -> new Prior(initialLatencyNanos));
+        final var now = System.nanoTime();
+        final var nextRefresh = prior.nextRefreshNanos.get();
+
+        if (now - nextRefresh >= 0 && prior.nextRefreshNanos.compareAndSet(nextRefresh, now + priorRefreshNanos)) {
+            prior.latencyNanos = computeMedianLatencyNanos(serviceId);
+        }
+
+        return prior.latencyNanos;
+    }
+
+    /**
+     * Drops the stats of the instances of {@code serviceId} that are not in {@code instances}.
+     */
+    public void retainInstances(final String serviceId, final List<ServiceInstance> instances) {
+        final var retainedKeys = new HashSet<String>();
+        instances.forEach(instance -> retainedKeys.add(key(serviceId, instance)));
+
+        entries.entrySet().removeIf(entry -> {
+            if (!entry.getValue().serviceId().equals(serviceId) || retainedKeys.contains(entry.getKey())) {
+                return false;
+            }
+
+            entry.getValue().meters().forEach(meterRegistry::remove);
+            log.debug("Dropped load balancer stats of {}", entry.getKey());
+            return true;
+        });
+    }
+
+    private double computeMedianLatencyNanos(final String serviceId) {
+        final var latencies = entries.values()
+                .stream()
+                .filter(entry -> entry.serviceId().equals(serviceId) && entry.stats().isSampled())
+                .mapToDouble(entry -> entry.stats().getEwmaNanos())
+                .toArray();
+
+        if (latencies.length == 0) {
+            return initialLatencyNanos;
+        }
+
+        Arrays.sort(latencies);
+        return latencies[latencies.length / 2];
+    }
+
+    private Entry createEntry(final String serviceId, final ServiceInstance instance) {
+        final var decayMs = environment.getProperty("loadbalancer.services." + serviceId + ".ewma-decay-ms", defaultDecayMs);
+        final var stats = new InstanceStats(Duration.ofMillis(Long.parseLong(decayMs)).toNanos());
+        final var instanceTag = instanceAddress(instance);
+
+        final List<Meter> meters = List.of(
+                Gauge.builder("urlshortener_api_gateway_lb_instance_latency_seconds", stats, InstanceStats::getEwmaSeconds)
+                        .description("Moving average of the response latency of a service instance")
+                        .tag("service", serviceId)
+                        .tag("instance", instanceTag)
+                        .register(meterRegistry),
+                Gauge.builder("urlshortener_api_gateway_lb_instance_in_flight", stats, InstanceStats::getInFlight)
+                        .description("Number of requests in flight to a service instance")
+                        .tag("service", serviceId)
+                        .tag("instance", instanceTag)
+                        .register(meterRegistry)
+        );
+
+        return new Entry(serviceId, stats, meters);
+    }
+
+    static String instanceAddress(final ServiceInstance instance) {
+        return instance.getHost() + ':' + instance.getPort();
+    }
+
+    private static String key(final String serviceId, final ServiceInstance instance) {
+        return serviceId + '/' + instanceAddress(instance);
+    }
+
+    private record Entry(String serviceId, InstanceStats stats, List<Meter> meters) {
+    }
+
+    private static final class Prior {
+
+        private final AtomicLong nextRefreshNanos = new AtomicLong(System.nanoTime());
+        private volatile double latencyNanos;
+
+        private Prior(final double latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+    }
+
+}
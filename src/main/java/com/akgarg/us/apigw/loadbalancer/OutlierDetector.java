@@ -0,0 +1,349 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code OutlierDetector} passively tracks the outcome of the requests proxied to each instance and ejects failing
+ * instances from load balancing, long before service discovery health checks mark them critical.
+ * <p>
+ * A request fails if it errors (connect failure, timeout) or the instance answers with a {@code 5xx} status. An
+ * instance is ejected after {@code consecutive-failures} failures in a row, or once at least
+ * {@code error-rate-min-requests} requests within {@code error-rate-window-ms} failed at a rate of
+ * {@code error-rate-threshold} or more. Ejection lasts {@code base-ejection-ms}, doubled for every ejection since the
+ * instance was last healthy for {@code ejection-reset-ms} and capped at {@code max-ejection-ms}.
+ * <p>
+ * After the ejection the instance is probed: it gets one request every {@code probe-interval-ms} and rejoins after
+ * {@code probe-successes} successful probes, while a failed probe ejects it again. All settings are prefixed with
+ * {@code loadbalancer.outlier-detection}.
+ * <p>
+ * Only services balanced by {@code p2c-ewma} skip ejected instances, so outcomes of other services are not recorded.
+ */
+@Slf4j
+@Component
+public class OutlierDetector {
+
+    private static final String PREFIX = "loadbalancer.outlier-detection.";
+
+    private final Map<String, InstanceHealth> instances = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> trackedServices = new ConcurrentHashMap<>();
+    private final Environment environment;
+    private final AtomicInteger unhealthyInstances = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int consecutiveFailures;
+    private final double errorRateThreshold;
+    private final int errorRateMinRequests;
+    private final long errorRateWindowNanos;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final long probeIntervalNanos;
+    private final int probeSuccesses;
+    private final long ejectionResetNanos;
+
+    public OutlierDetector(final Environment environment, final MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = Boolean.parseBoolean(environment.getProperty(PREFIX + "enabled", "true"));
+        this.consecutiveFailures = Integer.parseInt(environment.getProperty(PREFIX + "consecutive-failures", "5"));
+        this.errorRateThreshold = Double.parseDouble(environment.getProperty(PREFIX + "error-rate-threshold", "0.5"));
+        this.errorRateMinRequests = Integer.parseInt(environment.getProperty(PREFIX + "error-rate-min-requests", "20"));
+        this.errorRateWindowNanos = millisToNanos(environment.getProperty(PREFIX + "error-rate-window-ms", "10000"));
+        this.baseEjectionNanos = millisToNanos(environment.getProperty(PREFIX + "base-ejection-ms", "5000"));
+        this.maxEjectionNanos = millisToNanos(environment.getProperty(PREFIX + "max-ejection-ms", "120000"));
+        this.probeIntervalNanos = millisToNanos(environment.getProperty(PREFIX + "probe-interval-ms", "1000"));
+        this.probeSuccesses = Integer.parseInt(environment.getProperty(PREFIX + "probe-successes", "3"));
+        this.ejectionResetNanos = millisToNanos(environment.getProperty(PREFIX + "ejection-reset-ms", "300000"));
+
+        Gauge.builder("urlshortener_api_gateway_lb_unhealthy_instances", unhealthyInstances, AtomicInteger::get)
+                .description("Number of instances currently ejected or being probed by outlier detection")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns {@code true} if no instance of any service is ejected or being probed, so callers can skip
+     * {@link #getState} on the hot path.
+     */
+    public boolean allHealthy() {
+        return !enabled || unhealthyInstances.get() == 0;
+    }
+
+    public State getState(final String serviceId, final ServiceInstance instance) {
+        return getState(serviceId, instance, System.nanoTime());
+    }
+
+    State getState(final String serviceId, final ServiceInstance instance, final long now) {
+        if (!enabled) {
+            return State.HEALTHY;
+        }
+
+        final var health = instances.get(key(serviceId, instance));
+        return health == null ? State.HEALTHY : health.getState(now);
+    }
+
+    /**
+     * Claims the next probe of an instance being probed.
+     *
+     * @return {@code true} if the caller must send the request to this instance as a probe
+     */
+    public boolean tryProbe(final String serviceId, final ServiceInstance instance) {
+        return tryProbe(serviceId, instance, System.nanoTime());
+    }
+
+    boolean tryProbe(final String serviceId, final ServiceInstance instance, final long now) {
+        final var health = instances.get(key(serviceId, instance));
+        return health != null && health.tryProbe(now);
+    }
+
+    /**
+     * Records the outcome of a request proxied to an instance.
+     *
+     * @param success {@code false} if the request errored or was answered with a {@code 5xx} status
+     */
+    public void record(final String serviceId, final ServiceInstance instance, final boolean success) {
+        record(serviceId, instance, success, System.nanoTime());
+    }
+
+    void record(final String serviceId, final ServiceInstance instance, final boolean success, final long now) {
+        if (enabled && isTracked(serviceId)) {
+            getHealth(serviceId, instance).record(success, now);
+        }
+    }
+
+    private boolean isTracked(final String serviceId) {
+        final var tracked = trackedServices.get(serviceId);
+        return tracked != null ? tracked : trackedServices.computeIfAbsent(serviceId, id ->
+                LoadBalancerConfiguration.P2C_EWMA.equals(LoadBalancerConfiguration.algorithm(environment, id)));
+    }
+
+    /**
+     * Returns the instances that are currently ejected or being probed.
+     */
+    public List<UnhealthyInstance> getUnhealthyInstances() {
+        final var now = System.nanoTime();
+        final var result = new ArrayList<UnhealthyInstance>();
+
+        instances.values().forEach(health -> {
+            final var unhealthyInstance = health.toUnhealthyInstance(now);
+
+            if (unhealthyInstance != null) {
+                result.add(unhealthyInstance);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Drops the health of the instances of {@code serviceId} that are not in {@code serviceInstances}.
+     */
+    public void retainInstances(final String serviceId, final List<ServiceInstance> serviceInstances) {
+        final var retainedKeys = new HashSet<String>();
+        serviceInstances.forEach(instance -> retainedKeys.add(key(serviceId, instance)));
+
+        instances.entrySet().removeIf(entry -> {
+            final var health = entry.getValue();
+
+            if (!health.serviceId.equals(serviceId) || retainedKeys.contains(entry.getKey())) {
+                return false;
+            }
+
+            health.forget();
+            return true;
+        });
+    }
+
+    private InstanceHealth getHealth(final String serviceId, final ServiceInstance instance) {
+        final var key = key(serviceId, instance);
+        final var health = instances.get(key);
+        return health != null ? health : instances.computeIfAbsent(key, k -> new InstanceHealth(serviceId, LoadBalancerStatsRegistry.instanceAddress(instance)));
+    }
+
+    private static String key(final String serviceId, final ServiceInstance instance) {
+        return serviceId + '/' + LoadBalancerStatsRegistry.instanceAddress(instance);
+    }
+
+    private static long millisToNanos(final String millis) {
+        return Duration.ofMillis(Long.parseLong(millis)).toNanos();
+    }
+
+    public enum State {
+        HEALTHY,
+        EJECTED,
+        PROBING
+    }
+
+    /**
+     * An ejected or probed instance as reported by the {@code outliers} actuator endpoint.
+     */
+    public record UnhealthyInstance(String service,
+                                    String instance,
+                                    State state,
+                                    long ejectedForMillis,
+                                    int ejections,
+                                    int successfulProbes) {
+    }
+
+    /**
+     * Outlier detection state of one instance. Transitions are guarded by {@code this}; the state is volatile so
+     * the load balancer reads it without locking.
+     */
+    private final class InstanceHealth {
+
+        private final String serviceId;
+        private final String address;
+        private final Counter ejectionCounter;
+
+        private volatile State state = State.HEALTHY;
+        private volatile long ejectedUntilNanos;
+        private volatile long nextProbeNanos;
+        private int consecutiveFailureCount;
+        private int windowRequests;
+        private int windowFailures;
+        private long windowStartNanos = System.nanoTime();
+        private int ejections;
+        private int successfulProbes;
+        private long healthySinceNanos = System.nanoTime();
+
+        private InstanceHealth(final String serviceId, final String address) {
+            this.serviceId = serviceId;
+            this.address = address;
+            this.ejectionCounter = Counter.builder("urlshortener_api_gateway_lb_ejections_total")
+                    .description("Number of instances ejected from load balancing by outlier detection")
+                    .tag("service", serviceId)
+                    .register(meterRegistry);
+        }
+
+        private State getState(final long now) {
+            final var currentState = state;
+
+            if (currentState == State.EJECTED && now >= ejectedUntilNanos) {
+                synchronized (this) {
+                    if (state == State.EJECTED && now >= ejectedUntilNanos) {
+                        state = State.PROBING;
+                        successfulProbes = 0;
+                        nextProbeNanos = now;
+                        log.info("Probing {} instance {} after ejection", serviceId, address);
+                    }
+
+                    return state;
+                }
+            }
+
+            return currentState;
+        }
+
+        private synchronized boolean tryProbe(final long now) {
+            if (getState(now) != State.PROBING || now < nextProbeNanos) {
+                return false;
+            }
+
+            nextProbeNanos = now + probeIntervalNanos;
+            return true;
+        }
+
+        private synchronized void record(final boolean success, final long now) {
+            switch (getState(now)) {
+                case HEALTHY -> recordHealthy(success, now);
+                case PROBING -> recordProbe(success, now);
+                case EJECTED -> {
+                    // responses of requests sent before the ejection
+                }
+            }
+        }
+
+        private void recordHealthy(final boolean success, final long now) {
+            if (now - windowStartNanos > errorRateWindowNanos) {
+                windowStartNanos = now;
+                windowRequests = 0;
+                windowFailures = 0;
+            }
+
+            windowRequests++;
+
+            if (success) {
+                consecutiveFailureCount = 0;
+                return;
+            }
+
+            consecutiveFailureCount++;
+            windowFailures++;
+
+            if (consecutiveFailureCount >= consecutiveFailures) {
+                eject(now, consecutiveFailureCount + " consecutive failures");
+            } else if (windowRequests >= errorRateMinRequests && (double) windowFailures / windowRequests >= errorRateThreshold) {
+                eject(now, windowFailures + "/" + windowRequests + " failed requests");
+            }
+        }
+
+        private void recordProbe(final boolean success, final long now) {
+            if (!success) {
+                eject(now, "failed probe");
+                return;
+            }
+
+            if (++successfulProbes >= probeSuccesses) {
+                state = State.HEALTHY;
+                healthySinceNanos = now;
+                consecutiveFailureCount = 0;
+                windowStartNanos = now;
+                windowRequests = 0;
+                windowFailures = 0;
+                unhealthyInstances.decrementAndGet();
+                log.info("{} instance {} rejoined load balancing after {} successful probe(s)", serviceId, address, successfulProbes);
+            }
+        }
+
+        private void eject(final long now, final String reason) {
+            if (state == State.HEALTHY) {
+                unhealthyInstances.incrementAndGet();
+
+                if (now - healthySinceNanos >= ejectionResetNanos) {
+                    ejections = 0;
+                }
+            }
+
+            ejections++;
+            // double per ejection without overflowing the shift
+            final var shift = Math.min(ejections - 1, Long.numberOfLeadingZeros(baseEjectionNanos) - 1);
+            final var ejectionNanos = Math.min(maxEjectionNanos, baseEjectionNanos << shift);
+            ejectedUntilNanos = now + ejectionNanos;
+            state = State.EJECTED;
+            ejectionCounter.increment();
+            log.warn("Ejected {} instance {} for {} ms: {}", serviceId, address, Duration.ofNanos(ejectionNanos).toMillis(), reason);
+        }
+
+        private synchronized void forget() {
+            if (state != State.HEALTHY) {
+                state = State.HEALTHY;
+                unhealthyInstances.decrementAndGet();
+            }
+        }
+
+        private synchronized UnhealthyInstance toUnhealthyInstance(final long now) {
+            final var currentState = getState(now);
+
+            if (currentState == State.HEALTHY) {
+                return null;
+            }
+
+            final var ejectedForMillis = currentState == State.EJECTED ? Duration.ofNanos(ejectedUntilNanos - now).toMillis() : 0;
+            return new UnhealthyInstance(serviceId, address, currentState, ejectedForMillis, ejections, successfulProbes);
+        }
+
+    }
+
+}
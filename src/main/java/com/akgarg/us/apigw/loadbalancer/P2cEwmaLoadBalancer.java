@@ -0,0 +1,127 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code P2cEwmaLoadBalancer} picks an instance with the power of two choices: it samples two distinct instances at
+ * random and sends the request to the one with the lower {@link InstanceStats#cost(double)}, i.e. latency EWMA times
+ * requests in flight.
+ * <p>
+ * Sampling two instances instead of scanning all of them keeps the choice O(1) and avoids herding: a slow instance
+ * quickly loses most of its traffic but is still sampled, so its average recovers once it is fast again.
+ * <p>
+ * Instances ejected by the {@link OutlierDetector} are left out, and an instance being probed gets the request
+ * whenever its next probe is due. If every instance is ejected, all of them are used again rather than failing
+ * every request.
+ */
+@Slf4j
+public class P2cEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final long RETAIN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final LoadBalancerStatsRegistry statsRegistry;
+    private final OutlierDetector outlierDetector;
+    private volatile long lastRetainNanos = System.nanoTime();
+
+    public P2cEwmaLoadBalancer(final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                               final String serviceId,
+                               final LoadBalancerStatsRegistry statsRegistry,
+                               final OutlierDetector outlierDetector) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(final Request request) {
+        final var supplier = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+
+        return supplier.get(request)
+                .next()
+                .map(this::chooseInstance);
+    }
+
+    Response<ServiceInstance> chooseInstance(final List<ServiceInstance> serviceInstances) {
+        if (serviceInstances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+
+        retainInstances(serviceInstances);
+        var instances = serviceInstances;
+
+        if (!outlierDetector.allHealthy()) {
+            final var healthyInstances = new ArrayList<ServiceInstance>(serviceInstances.size());
+
+            for (final var instance : serviceInstances) {
+                switch (outlierDetector.getState(serviceId, instance)) {
+                    case HEALTHY -> healthyInstances.add(instance);
+                    case PROBING -> {
+                        if (outlierDetector.tryProbe(serviceId, instance)) {
+                            return new DefaultResponse(instance);
+                        }
+                    }
+                    case EJECTED -> {
+                        // left out until its ejection ends
+                    }
+                }
+            }
+
+            if (healthyInstances.isEmpty()) {
+                log.warn("All instances of {} are ejected, ignoring outlier detection", serviceId);
+            } else {
+                instances = healthyInstances;
+            }
+        }
+
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.getFirst());
+        }
+
+        final var random = ThreadLocalRandom.current();
+        final var first = random.nextInt(instances.size());
+        var second = random.nextInt(instances.size() - 1);
+
+        if (second >= first) {
+            second++;
+        }
+
+        final var firstInstance = instances.get(first);
+        final var secondInstance = instances.get(second);
+        final var priorNanos = statsRegistry.getPriorLatencyNanos(serviceId);
+        final var firstCost = statsRegistry.getStats(serviceId, firstInstance).cost(priorNanos);
+        final var secondCost = statsRegistry.getStats(serviceId, secondInstance).cost(priorNanos);
+
+        return new DefaultResponse(firstCost <= secondCost ? firstInstance : secondInstance);
+    }
+
+    private void retainInstances(final List<ServiceInstance> instances) {
+        final var now = System.nanoTime();
+
+        if (now - lastRetainNanos >= RETAIN_INTERVAL_NANOS) {
+            lastRetainNanos = now;
+            statsRegistry.retainInstances(serviceId, instances);
+            outlierDetector.retainInstances(serviceId, instances);
+        }
+    }
+
+}
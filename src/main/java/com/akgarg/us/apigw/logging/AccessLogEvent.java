@@ -0,0 +1,37 @@
+package com.akgarg.us.apigw.logging;
+
+/**
+ * Mutable, preallocated slot of the {@link AccessLogger} ring buffer. Producers overwrite the fields of a claimed
+ * slot instead of allocating a log event per request.
+ */
+final class AccessLogEvent {
+
+    String requestId;
+    String method;
+    String path;
+    String clientIp;
+    int statusCode;
+    long durationMillis;
+
+    void set(final String requestId,
+             final String method,
+             final String path,
+             final String clientIp,
+             final int statusCode,
+             final long durationMillis) {
+        this.requestId = requestId;
+        this.method = method;
+        this.path = path;
+        this.clientIp = clientIp;
+        this.statusCode = statusCode;
+        this.durationMillis = durationMillis;
+    }
+
+    void clear() {
+        this.requestId = null;
+        this.method = null;
+        this.path = null;
+        this.clientIp = null;
+    }
+
+}
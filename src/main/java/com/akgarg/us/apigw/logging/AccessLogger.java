@@ -0,0 +1,133 @@
+package com.akgarg.us.apigw.logging;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.logging.log4j.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_ATTRIBUTE_NAME;
+
+/**
+ * {@code AccessLogger} writes one access log line per request without doing the formatting and appender I/O on the
+ * request thread.
+ * <p>
+ * The request thread only copies the fields into a preallocated slot of a Disruptor ring buffer. A single consumer
+ * thread drains the buffer in batches and writes the lines through the dedicated {@value #ACCESS_LOGGER_NAME}
+ * logger (see {@code log4j2.xml}). When the buffer is full (e.g. a slow socket appender) the line is dropped instead
+ * of blocking the event loop, and {@code urlshortener_api_gateway_access_log_dropped_total} is incremented.
+ * <p>
+ * The buffer size is configured with {@code access-log.buffer-size} and must be a power of two.
+ */
+@Slf4j
+@Component
+public class AccessLogger {
+
+    static final String ACCESS_LOGGER_NAME = "com.akgarg.us.apigw.access";
+
+    private static final Logger accessLog = LoggerFactory.getLogger(ACCESS_LOGGER_NAME);
+
+    private final Disruptor<AccessLogEvent> disruptor;
+    private final RingBuffer<AccessLogEvent> ringBuffer;
+    private final Counter droppedCounter;
+
+    public AccessLogger(final Environment environment, final MeterRegistry meterRegistry) {
+        final var bufferSize = Integer.parseInt(environment.getProperty("access-log.buffer-size", "8192"));
+
+        this.disruptor = new Disruptor<>(
+                AccessLogEvent::new,
+                bufferSize,
+                Thread.ofPlatform().name("access-log").daemon(true).factory(),
+                ProducerType.MULTI,
+                new SleepingWaitStrategy()
+        );
+        this.disruptor.handleEventsWith(new AccessLogEventHandler());
+        this.ringBuffer = disruptor.getRingBuffer();
+        this.droppedCounter = Counter.builder("urlshortener_api_gateway_access_log_dropped_total")
+                .description("Number of access log lines dropped because the access log buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        disruptor.start();
+    }
+
+    /**
+     * Queues an access log line. Never blocks; the line is dropped if the buffer is full.
+     */
+    public void log(final String requestId,
+                    final String method,
+                    final String path,
+                    final String clientIp,
+                    final int statusCode,
+                    final long durationMillis) {
+        if (!accessLog.isInfoEnabled()) {
+            return;
+        }
+
+        final long sequence;
+
+        try {
+            sequence = ringBuffer.tryNext();
+        } catch (InsufficientCapacityException e) {
+            droppedCounter.increment();
+            return;
+        }
+
+        try {
+            ringBuffer.get(sequence).set(requestId, method, path, clientIp, statusCode, durationMillis);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            disruptor.shutdown(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Access log buffer was not drained within 5 seconds, discarding remaining lines");
+            disruptor.halt();
+        }
+    }
+
+    private static final class AccessLogEventHandler implements EventHandler<AccessLogEvent> {
+
+        @Override
+        public void onEvent(final AccessLogEvent event, final long sequence, final boolean endOfBatch) {
+            try {
+                ThreadContext.put(REQUEST_ID_ATTRIBUTE_NAME, event.requestId);
+                accessLog.info("requestId: {}, method: {}, path: {}, client_ip: {}, status_code: {}, response_time_ms: {}",
+                        event.requestId,
+                        event.method,
+                        event.path,
+                        event.clientIp,
+                        event.statusCode,
+                        event.durationMillis
+                );
+            } catch (Exception e) {
+                log.error("Failed to write access log line", e);
+            } finally {
+                ThreadContext.remove(REQUEST_ID_ATTRIBUTE_NAME);
+                event.clear();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.akgarg.us.apigw.logging;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import org.apache.logging.log4j.ThreadContext;
+
+import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_ATTRIBUTE_NAME;
+
+/**
+ * Bridges the request id stored in the Reactor context by {@link com.akgarg.us.apigw.filter.RequestIdFilter} to the
+ * log4j {@link ThreadContext}, so every log line written while handling a request carries its id.
+ * <p>
+ * Registered through {@code META-INF/services} and applied by Reactor's automatic context propagation
+ * ({@code spring.reactor.context-propagation=auto}), which restores the value only when a signal is delivered on
+ * a thread where it is not already set.
+ */
+public class RequestIdThreadLocalAccessor implements ThreadLocalAccessor<String> {
+
+    @Override
+    public Object key() {
+        return REQUEST_ID_ATTRIBUTE_NAME;
+    }
+
+    @Override
+    public String getValue() {
+        return ThreadContext.get(REQUEST_ID_ATTRIBUTE_NAME);
+    }
+
+    @Override
+    public void setValue(final String requestId) {
+        ThreadContext.put(REQUEST_ID_ATTRIBUTE_NAME, requestId);
+    }
+
+    @Override
+    public void setValue() {
+        ThreadContext.remove(REQUEST_ID_ATTRIBUTE_NAME);
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.akgarg.us.apigw.metrics;
+
+import com.akgarg.us.apigw.utils.HashUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code HeavyHitters} tracks the most frequent keys of an unbounded stream in fixed memory.
+ * <p>
+ * Every key is counted in a Count-Min sketch of {@code depth} rows of {@code width} atomic counters, so recording
+ * a key never takes a lock. The counter of each row is derived from one seeded 64-bit hash of the key with double
+ * hashing ({@code h1 + row * h2}); the seed is random per instance, so colliding keys cannot be crafted. The
+ * estimated count of a key is the minimum of its counters, which can over-estimate (hash collisions) but never
+ * under-estimate the true count. The {@code k} keys with the highest estimates are kept in a small candidate map.
+ * Counts of candidates above the smallest one are raised by compare-and-set; the map is only locked when a key
+ * enters or leaves it, or when the smallest candidate changes.
+ * <p>
+ * {@link #decay()} halves all counts so that the top-K reflects recent traffic rather than all traffic since
+ * startup. Memory is {@code width * depth} longs plus {@code k} candidates, independent of the number of keys seen.
+ */
+public final class HeavyHitters {
+
+    private final int width;
+    private final int depth;
+    private final int k;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    private final AtomicLongArray counters;
+    /**
+     * Keys and counts of the top-K candidates. Keys are only added or removed while holding the map's lock.
+     */
+    private final Map<String, Long> candidates;
+
+    /**
+     * The smallest estimate in {@link #candidates} once it is full (zero until then), used to skip the lock for
+     * keys that cannot enter the top-K. Only updated while holding the map's lock.
+     */
+    private volatile long minCandidateCount;
+
+    public HeavyHitters(final int width, final int depth, final int k) {
+        if (width <= 0 || depth <= 0 || (long) width * depth > Integer.MAX_VALUE || k <= 0) {
+            throw new IllegalArgumentException("Invalid heavy hitters dimensions: width=%d, depth=%d, k=%d".formatted(width, depth, k));
+        }
+
+        this.width = width;
+        this.depth = depth;
+        this.k = k;
+        this.counters = new AtomicLongArray(width * depth);
+        this.candidates = new ConcurrentHashMap<>(k * 2);
+    }
+
+    /**
+     * Records one occurrence of the key.
+     */
+    public void add(final String key) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+
+        final var h1 = HashUtils.hash64(key, seed);
+        final var h2 = HashUtils.mix(h1 + 0x9E3779B97F4A7C15L);
+        var estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, h1 + row * h2)));
+        }
+
+        if (estimate > minCandidateCount && !raiseCandidate(key, estimate)) {
+            offerCandidate(key, estimate);
+        }
+    }
+
+    /**
+     * Returns the estimated count of the key.
+     */
+    long estimate(final String key) {
+        final var h1 = HashUtils.hash64(key, seed);
+        final var h2 = HashUtils.mix(h1 + 0x9E3779B97F4A7C15L);
+        var estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, h1 + row * h2)));
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Returns the current top-K keys ordered by estimated count, highest first.
+     */
+    public List<HeavyHitter> topK() {
+        final List<HeavyHitter> result;
+
+        synchronized (candidates) {
+            result = new ArrayList<>(candidates.size());
+            candidates.forEach((key, count) -> result.add(new HeavyHitter(key, count)));
+        }
+
+        result.sort(Comparator.comparingLong(HeavyHitter::count).reversed());
+        return result;
+    }
+
+    /**
+     * Halves every count. Keys whose count drops to zero leave the top-K.
+     */
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >> 1);
+        }
+
+        synchronized (candidates) {
+            candidates.replaceAll((key, count) -> count >> 1);
+            candidates.values().removeIf(count -> count == 0);
+            updateMinCandidateCount();
+        }
+    }
+
+    /**
+     * Raises the count of a key that already is a candidate without taking the lock. A candidate holding the
+     * smallest count is left to {@link #offerCandidate(String, long)}, since raising it moves the minimum.
+     *
+     * @return {@code false} if the key is not a candidate or holds the smallest count
+     */
+    private boolean raiseCandidate(final String key, final long estimate) {
+        while (true) {
+            final var count = candidates.get(key);
+
+            if (count == null || count <= minCandidateCount) {
+                return false;
+            }
+
+            if (count >= estimate || candidates.replace(key, count, estimate)) {
+                return true;
+            }
+        }
+    }
+
+    private void offerCandidate(final String key, final long estimate) {
+        synchronized (candidates) {
+            candidates.merge(key, estimate, Math::max);
+
+            if (candidates.size() > k) {
+                var minKey = key;
+                var minCount = estimate;
+
+                for (final var candidate : candidates.entrySet()) {
+                    if (candidate.getValue() < minCount) {
+                        minKey = candidate.getKey();
+                        minCount = candidate.getValue();
+                    }
+                }
+
+                candidates.remove(minKey);
+            }
+
+            updateMinCandidateCount();
+        }
+    }
+
+    private void updateMinCandidateCount() {
+        if (candidates.size() < k) {
+            minCandidateCount = 0;
+            return;
+        }
+
+        var min = Long.MAX_VALUE;
+
+        for (final var count : candidates.values()) {
+            min = Math.min(min, count);
+        }
+
+        minCandidateCount = min;
+    }
+
+    private int index(final int row, final long combinedHash) {
+        return row * width + (int) ((combinedHash & Long.MAX_VALUE) % width);
+    }
+
+    public record HeavyHitter(String key, long count) {
+    }
+
+}
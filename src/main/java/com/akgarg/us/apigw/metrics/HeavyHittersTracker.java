@@ -0,0 +1,86 @@
+package com.akgarg.us.apigw.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code HeavyHittersTracker} keeps a {@link HeavyHitters} sketch per {@link Category} of client identifier and
+ * periodically decays them, so the reported top-K reflects the last few decay intervals.
+ * <p>
+ * Configured with {@code metrics.heavy-hitters.top-k}, {@code metrics.heavy-hitters.width},
+ * {@code metrics.heavy-hitters.depth} and {@code metrics.heavy-hitters.decay-interval-seconds}.
+ */
+@Slf4j
+@Component
+public class HeavyHittersTracker {
+
+    private final ScheduledExecutorService decayExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final Map<Category, HeavyHitters> heavyHitters = new EnumMap<>(Category.class);
+    private final long decayIntervalSeconds;
+
+    public HeavyHittersTracker(final Environment environment) {
+        final var topK = Integer.parseInt(environment.getProperty("metrics.heavy-hitters.top-k", "20"));
+        final var width = Integer.parseInt(environment.getProperty("metrics.heavy-hitters.width", "2048"));
+        final var depth = Integer.parseInt(environment.getProperty("metrics.heavy-hitters.depth", "4"));
+        this.decayIntervalSeconds = Long.parseLong(environment.getProperty("metrics.heavy-hitters.decay-interval-seconds", "60"));
+
+        for (final var category : Category.values()) {
+            heavyHitters.put(category, new HeavyHitters(width, depth, topK));
+        }
+    }
+
+    @PostConstruct
+    public void startDecayTask() {
+        decayExecutor.scheduleAtFixedRate(this::decay, decayIntervalSeconds, decayIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void record(final Category category, final String key) {
+        heavyHitters.get(category).add(key);
+    }
+
+    public List<HeavyHitters.HeavyHitter> topK(final Category category) {
+        return heavyHitters.get(category).topK();
+    }
+
+    void decay() {
+        try {
+            heavyHitters.values().forEach(HeavyHitters::decay);
+        } catch (Exception e) {
+            log.error("Failed to decay heavy hitters", e);
+        }
+    }
+
+    @PreDestroy
+    public void stopDecayTask() {
+        decayExecutor.shutdownNow();
+    }
+
+    public enum Category {
+
+        CLIENT_IP("client_ip"),
+        USER_ID("user_id"),
+        RATE_LIMITED("rate_limited");
+
+        private final String value;
+
+        Category(final String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+    }
+
+}
@@ -9,8 +9,8 @@ import java.util.Map;
 
 /**
  * {@code AbstractRateLimiterService} provides the base functionality for rate-limiting services.
- * It implements the {@link RateLimiter} interface and defines common methods and configurations
- * shared across different rate limiter implementations.
+ * It defines common methods and configurations shared across the {@link RateLimiter} and
+ * {@link ReactiveRateLimiter} implementations.
  * <p>
  * This abstract class holds a static map to configure the allowed requests per minute for various API paths.
  * It also provides a utility method for generating a unique key based on the API path and the identifier (e.g., user ID or IP address).
@@ -18,7 +18,7 @@ import java.util.Map;
  * <p>
  */
 @Slf4j
-public abstract class AbstractRateLimiter implements RateLimiter {
+public abstract class AbstractRateLimiter {
 
     /**
      * A map storing the allowed number of requests for a certain interval for each API route.
@@ -50,6 +50,17 @@ public abstract class AbstractRateLimiter implements RateLimiter {
         allowedRequests.put(ApiRoutes.PAYPAL_WEBHOOK_API_PATH, 100);
     }
 
+    /**
+     * A map storing the {@link RateLimitAlgorithm} of each API route. Routes without an entry use
+     * {@link RateLimitAlgorithm#FIXED_WINDOW}.
+     */
+    static final Map<String, RateLimitAlgorithm> algorithms = new HashMap<>();
+
+    /**
+     * A map storing the burst capacity of each API route using {@link RateLimitAlgorithm#TOKEN_BUCKET}.
+     */
+    static final Map<String, Integer> burstCapacities = new HashMap<>();
+
     /**
      * Creates a unique key for each request based on the given API path and identifier.
      * The key is a combination of the {@code path} and {@code identifier}, separated by a colon.
@@ -93,4 +104,41 @@ public abstract class AbstractRateLimiter implements RateLimiter {
         }
     }
 
+    /**
+     * Updates the rate limit algorithm and burst capacity of each API path based on the environment properties
+     * <code>rate-limiter.algorithms.{path}</code> and <code>rate-limiter.burst.{path}</code>. The algorithm defaults
+     * to {@link RateLimitAlgorithm#FIXED_WINDOW} and the burst capacity to 10% of the per-minute limit (at least 1).
+     * Must be called after {@link #updateAllowedRequestsPerMinute(Environment)}.
+     *
+     * @param environment The environment containing the rate-limiting configuration properties.
+     * @throws RateLimiterConfigurationException if an algorithm is unknown or a burst capacity is not an integer
+     */
+    void updateRateLimitAlgorithms(final Environment environment) {
+        for (final var path : ApiRoutes.getApiPaths()) {
+            final var algorithmProperty = environment.getProperty("rate-limiter.algorithms." + path, RateLimitAlgorithm.FIXED_WINDOW.getValue());
+            final var burstProperty = environment.getProperty("rate-limiter.burst." + path);
+
+            try {
+                final var algorithm = RateLimitAlgorithm.fromValue(algorithmProperty.trim());
+                final var burstCapacity = burstProperty != null ?
+                        Integer.parseInt(burstProperty) :
+                        Math.max(1, (allowedRequests.getOrDefault(path, 1) + 9) / 10);
+
+                algorithms.put(path, algorithm);
+                burstCapacities.put(path, Math.max(1, burstCapacity));
+                log.info("Rate limit algorithm for {}: {}", path, algorithm.getValue());
+            } catch (Exception e) {
+                throw new RateLimiterConfigurationException("Failed to configure rate limit algorithm for " + path, e);
+            }
+        }
+    }
+
+    static RateLimitAlgorithm getAlgorithm(final String apiRoute) {
+        return algorithms.getOrDefault(apiRoute, RateLimitAlgorithm.FIXED_WINDOW);
+    }
+
+    static int getBurstCapacity(final String apiRoute) {
+        return burstCapacities.getOrDefault(apiRoute, 1);
+    }
+
 }
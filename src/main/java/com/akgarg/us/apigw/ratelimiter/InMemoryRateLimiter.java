@@ -7,24 +7,35 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
 
 /**
  * {@code InMemoryRateLimiter} provides a simple in-memory rate-limiting implementation.
  * It limits the number of requests that can be made by a specific client to a particular API endpoint.
  * <p>
- * The rate limiter uses two maps: one to track the request count and the other to track the last request timestamp.
+ * The rate limiter keeps one {@link ConcurrentHashMap} of per-key state for each {@link RateLimitAlgorithm}. The
+ * state of a key is packed into one {@code long} and updated with compare-and-set, so request threads never take a
+ * lock once the key exists:
+ * <ul>
+ * <li>fixed window: window start timestamp and request count</li>
+ * <li>sliding window: window index and the request counts of the current and previous window</li>
+ * <li>token bucket: theoretical arrival time of the next request (GCRA)</li>
+ * </ul>
  * It also uses a scheduled task to periodically evict expired entries from the maps to ensure efficient memory usage.
  */
 @Service
 @Slf4j
 @Profile({"default", "dev"})
-public class InMemoryRateLimiter extends AbstractRateLimiter {
+public class InMemoryRateLimiter extends AbstractRateLimiter implements RateLimiter {
 
     /**
      * The interval at which the eviction task runs to remove expired entries, in milliseconds.
@@ -38,23 +49,46 @@ public class InMemoryRateLimiter extends AbstractRateLimiter {
     private static final long TTL_PERIOD_MS = 60 * 1000L;
 
     /**
-     * Executor for running the eviction task at fixed intervals.
+     * Number of low bits of the fixed window state holding the request count. The remaining high bits hold the
+     * window start timestamp in epoch milliseconds.
      */
-    private final ScheduledExecutorService evictionExecutor = Executors.newSingleThreadScheduledExecutor();
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    /**
+     * Number of bits of the sliding window state holding each of the current and previous request counts. The
+     * remaining high bits hold the (truncated) index of the current window.
+     */
+    private static final int SLIDING_COUNT_BITS = 18;
+    private static final long SLIDING_COUNT_MASK = (1L << SLIDING_COUNT_BITS) - 1;
+    private static final long SLIDING_INDEX_MASK = (1L << (Long.SIZE - 2 * SLIDING_COUNT_BITS)) - 1;
+
+    /**
+     * State an expired entry is set to before it is removed. It never occurs as a real state: the fixed window start
+     * it encodes lies far in the future, sliding window states always count at least one request, and token bucket
+     * states are never negative.
+     */
+    private static final long EVICTED = Long.MIN_VALUE;
 
     /**
-     * A map that stores the count of requests for each client (identified by the combination of path and identifier).
+     * Executor for running the eviction task at fixed intervals.
      */
-    private final Map<String, Integer> requestCountMap = new HashMap<>();
+    private final ScheduledExecutorService evictionExecutor = Executors.newSingleThreadScheduledExecutor();
 
     /**
-     * A map that stores the timestamp of the last request for each client.
+     * Maps storing the packed state for each client (identified by the combination of path and identifier),
+     * one per algorithm.
      */
-    private final Map<String, Long> timestampMap = new HashMap<>();
+    private final Map<RateLimitAlgorithm, ConcurrentMap<String, AtomicLong>> states = new EnumMap<>(RateLimitAlgorithm.class);
 
     public InMemoryRateLimiter(final Environment environment) {
         super();
         updateAllowedRequestsPerMinute(Objects.requireNonNull(environment, "environment is required"));
+        updateRateLimitAlgorithms(environment);
+
+        for (final var algorithm : RateLimitAlgorithm.values()) {
+            states.put(algorithm, new ConcurrentHashMap<>());
+        }
     }
 
     /**
@@ -68,7 +102,7 @@ public class InMemoryRateLimiter extends AbstractRateLimiter {
     }
 
     @Override
-    public boolean isRateLimited(final String apiRoute, final String requestPath, final String identifier) {
+    public RateLimitDecision tryAcquire(final String apiRoute, final String requestPath, final String identifier) {
         if (apiRoute == null || apiRoute.isBlank()) {
             throw new IllegalArgumentException("Invalid apiRoute provided");
         }
@@ -81,45 +115,181 @@ public class InMemoryRateLimiter extends AbstractRateLimiter {
 
         if (allowedRequests == null) {
             log.warn("No rate limit configuration found for route: {}.", apiRoute);
-            return false;
+            return RateLimitDecision.unlimited();
         }
 
+        final var algorithm = getAlgorithm(apiRoute);
         final var key = createKey(requestPath, identifier);
-        final var lastRequestTime = timestampMap.getOrDefault(key, 0L);
 
-        if (System.currentTimeMillis() - lastRequestTime > TTL_PERIOD_MS) {
-            requestCountMap.put(key, 0);
-            timestampMap.put(key, System.currentTimeMillis());
+        while (true) {
+            final var state = getState(algorithm, key);
+            final var decision = switch (algorithm) {
+                case FIXED_WINDOW -> tryAcquireFixedWindow(state, allowedRequests);
+                case SLIDING_WINDOW -> tryAcquireSlidingWindow(state, allowedRequests);
+                case TOKEN_BUCKET -> tryAcquireTokenBucket(state, allowedRequests, getBurstCapacity(apiRoute));
+            };
+
+            if (decision != null) {
+                return decision;
+            }
+
+            // the state is being evicted, finish the removal and start over with a new one
+            states.get(algorithm).remove(key, state);
+        }
+    }
+
+    private RateLimitDecision tryAcquireFixedWindow(final AtomicLong window, final int allowedRequests) {
+        final long limit = Math.min(allowedRequests, COUNT_MASK);
+
+        while (true) {
+            final var currentTime = System.currentTimeMillis();
+            final var state = window.get();
+
+            if (state == EVICTED) {
+                return null;
+            }
+
+            var windowStart = state >>> COUNT_BITS;
+            var requestCount = state & COUNT_MASK;
+
+            if (currentTime - windowStart > TTL_PERIOD_MS) {
+                windowStart = currentTime;
+                requestCount = 0;
+            }
+
+            final var resetAfterMillis = Math.max(0, TTL_PERIOD_MS - (currentTime - windowStart));
+
+            if (requestCount >= limit) {
+                return new RateLimitDecision(false, allowedRequests, 0, resetAfterMillis);
+            }
+
+            if (window.compareAndSet(state, (windowStart << COUNT_BITS) | (requestCount + 1))) {
+                return new RateLimitDecision(true, allowedRequests, limit - requestCount - 1, resetAfterMillis);
+            }
+        }
+    }
+
+    private RateLimitDecision tryAcquireSlidingWindow(final AtomicLong window, final int allowedRequests) {
+        final long limit = Math.min(allowedRequests, SLIDING_COUNT_MASK);
+
+        while (true) {
+            final var currentTime = System.currentTimeMillis();
+            final var windowIndex = currentTime / TTL_PERIOD_MS;
+            final var state = window.get();
+
+            if (state == EVICTED) {
+                return null;
+            }
+
+            final var storedIndex = state >>> (2 * SLIDING_COUNT_BITS);
+            var previousCount = 0L;
+            var currentCount = 0L;
+
+            if (storedIndex == (windowIndex & SLIDING_INDEX_MASK)) {
+                previousCount = (state >>> SLIDING_COUNT_BITS) & SLIDING_COUNT_MASK;
+                currentCount = state & SLIDING_COUNT_MASK;
+            } else if (storedIndex == ((windowIndex - 1) & SLIDING_INDEX_MASK)) {
+                previousCount = state & SLIDING_COUNT_MASK;
+            }
+
+            final var elapsed = currentTime - windowIndex * TTL_PERIOD_MS;
+            final var estimated = previousCount * (double) (TTL_PERIOD_MS - elapsed) / TTL_PERIOD_MS + currentCount;
+            final var resetAfterMillis = TTL_PERIOD_MS - elapsed;
+
+            if (estimated >= limit) {
+                return new RateLimitDecision(false, allowedRequests, 0, resetAfterMillis);
+            }
+
+            final var newState = ((windowIndex & SLIDING_INDEX_MASK) << (2 * SLIDING_COUNT_BITS)) |
+                    (previousCount << SLIDING_COUNT_BITS) |
+                    (currentCount + 1);
+
+            if (window.compareAndSet(state, newState)) {
+                final var remaining = (long) Math.max(0, Math.floor(limit - estimated - 1));
+                return new RateLimitDecision(true, allowedRequests, remaining, resetAfterMillis);
+            }
         }
+    }
+
+    private RateLimitDecision tryAcquireTokenBucket(final AtomicLong theoreticalArrivalTime,
+                                                    final int allowedRequests,
+                                                    final int burstCapacity) {
+        if (allowedRequests <= 0) {
+            return new RateLimitDecision(false, allowedRequests, 0, TTL_PERIOD_MS);
+        }
+
+        final var intervalMicros = TTL_PERIOD_MS * 1000.0 / allowedRequests;
 
-        if (requestCountMap.getOrDefault(key, 0) >= allowedRequests) {
-            return true;
-        } else {
-            requestCountMap.put(key, requestCountMap.getOrDefault(key, 0) + 1);
+        while (true) {
+            final var currentTimeMicros = System.currentTimeMillis() * 1000;
+            final var state = theoreticalArrivalTime.get();
+
+            if (state == EVICTED) {
+                return null;
+            }
+
+            final var newTat = Math.max(state, currentTimeMicros) + intervalMicros;
+            final var allowAt = newTat - burstCapacity * intervalMicros;
+
+            if (currentTimeMicros < allowAt) {
+                final var retryAfterMillis = (long) Math.ceil((allowAt - currentTimeMicros) / 1000);
+                return new RateLimitDecision(false, allowedRequests, 0, retryAfterMillis);
+            }
+
+            if (theoreticalArrivalTime.compareAndSet(state, (long) newTat)) {
+                final var remaining = (long) Math.floor((currentTimeMicros - allowAt) / intervalMicros);
+                final var resetAfterMillis = (long) Math.ceil((newTat - currentTimeMicros) / 1000);
+                return new RateLimitDecision(true, allowedRequests, remaining, resetAfterMillis);
+            }
         }
+    }
 
-        return false;
+    private AtomicLong getState(final RateLimitAlgorithm algorithm, final String key) {
+        final var algorithmStates = states.get(algorithm);
+        final var state = algorithmStates.get(key);
+        return state != null ? state : algorithmStates.computeIfAbsent(key, k -> new AtomicLong());
     }
 
     /**
      * Periodically evicts expired entries from the maps.
-     * Entries are considered expired if they are older than the TTL period.
+     * Entries are considered expired once their state no longer affects any future decision: a fixed window that
+     * started more than the TTL period ago, a sliding window older than the previous window, or a token bucket
+     * that is full again.
+     * <p>
+     * Each map is walked with its weakly consistent iterator, so request threads are never blocked by the eviction.
+     * An expired state is first swapped for {@link #EVICTED} with compare-and-set and only then removed. A request
+     * racing with the eviction either updates the state first, which keeps it from being evicted, or sees
+     * {@link #EVICTED} and starts over with a new state, so no request is ever counted against a removed state.
      */
-    private void evictExpiredEntries() {
+    void evictExpiredEntries() {
         final var currentTime = System.currentTimeMillis();
-        final var iterator = timestampMap.entrySet().iterator();
+        final var windowIndex = currentTime / TTL_PERIOD_MS;
 
-        while (iterator.hasNext()) {
-            final var entry = iterator.next();
-            final var key = entry.getKey();
-            final var timestamp = entry.getValue();
+        evictExpiredEntries(RateLimitAlgorithm.FIXED_WINDOW, state -> currentTime - (state >>> COUNT_BITS) > TTL_PERIOD_MS);
 
-            if (currentTime - timestamp > TTL_PERIOD_MS) {
-                // Remove expired entries from both maps.
-                requestCountMap.remove(key);
-                iterator.remove();
+        evictExpiredEntries(RateLimitAlgorithm.SLIDING_WINDOW, state -> {
+            final var storedIndex = state >>> (2 * SLIDING_COUNT_BITS);
+            return storedIndex != (windowIndex & SLIDING_INDEX_MASK) &&
+                    storedIndex != ((windowIndex - 1) & SLIDING_INDEX_MASK);
+        });
+
+        evictExpiredEntries(RateLimitAlgorithm.TOKEN_BUCKET, state -> state <= currentTime * 1000);
+    }
+
+    private void evictExpiredEntries(final RateLimitAlgorithm algorithm, final LongPredicate expired) {
+        final var algorithmStates = states.get(algorithm);
+
+        algorithmStates.forEach((key, state) -> {
+            final var value = state.get();
+
+            if (value != EVICTED && expired.test(value) && state.compareAndSet(value, EVICTED)) {
+                algorithmStates.remove(key, state);
             }
-        }
+        });
+    }
+
+    int size() {
+        return states.values().stream().mapToInt(Map::size).sum();
     }
 
     /**
@@ -0,0 +1,201 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.akgarg.us.apigw.ratelimiter.RedisRateLimitScripts.WINDOW_MS;
+
+/**
+ * {@code LeasedRedisRateLimiter} is a two-tier rate limiter for fixed window routes.
+ * <p>
+ * Instead of calling Redis for every request, each gateway node leases a block of the per-minute quota of a key
+ * from Redis (by default 10% of {@link AbstractRateLimiter#allowedRequests}) and spends it locally with atomic
+ * counters. Redis is only called again when the lease is used up or its window ends. Once Redis reports the window
+ * as exhausted, further requests are rejected locally until the window resets.
+ * <p>
+ * Leases are taken from the same Redis counter as the per-request fixed window script, so the limit is never
+ * exceeded. The trade-off is accuracy: quota leased by one node but not spent before the window ends is not
+ * available to other nodes. Routes using another {@link RateLimitAlgorithm}, or whose lease would be a single
+ * request, fall back to a per-request check.
+ * <p>
+ * Enabled with {@code rate-limiter.lease.enabled=true}. The lease size is configured as a fraction of the
+ * per-minute limit with {@code rate-limiter.lease.default-fraction} and {@code rate-limiter.lease.fractions.{path}}.
+ */
+@Service
+@Slf4j
+@Profile("prod")
+@ConditionalOnProperty(name = "rate-limiter.lease.enabled", havingValue = "true")
+public class LeasedRedisRateLimiter extends ReactiveRedisRateLimiter {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_SCRIPT = RedisScript.of(
+            new ClassPathResource("redis/fixed-window-lease.lua"), List.class
+    );
+
+    private final Map<String, Integer> leaseSizes = new ConcurrentHashMap<>();
+    private final Map<String, Mono<Lease>> pendingLeases = new ConcurrentHashMap<>();
+    private final Cache<String, Lease> leases;
+    private final Counter redisCallsSavedCounter;
+    private final Counter leaseCounter;
+
+    public LeasedRedisRateLimiter(final ReactiveStringRedisTemplate redisTemplate,
+                                  final Environment environment,
+                                  final MeterRegistry meterRegistry) {
+        super(redisTemplate, environment, meterRegistry);
+        updateLeaseSizes(environment);
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(Long.parseLong(environment.getProperty("rate-limiter.lease.max-keys", "100000")))
+                .expireAfterWrite(Duration.ofMillis(WINDOW_MS))
+                .build();
+        this.redisCallsSavedCounter = Counter.builder("urlshortener_api_gateway_rate_limiter_redis_calls_saved_total")
+                .description("Number of rate limit checks answered from a local lease instead of Redis")
+                .register(meterRegistry);
+        this.leaseCounter = Counter.builder("urlshortener_api_gateway_rate_limiter_leases_total")
+                .description("Number of quota leases requested from Redis")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(final String apiRoute, final String requestPath, final String identifier) {
+        final var allowedRequests = AbstractRateLimiter.allowedRequests.get(apiRoute);
+        final var leaseSize = leaseSizes.getOrDefault(apiRoute, 1);
+
+        if (allowedRequests == null || leaseSize <= 1 || getAlgorithm(apiRoute) != RateLimitAlgorithm.FIXED_WINDOW) {
+            return super.tryAcquire(apiRoute, requestPath, identifier);
+        }
+
+        if (requestPath == null || identifier == null || requestPath.isBlank() || identifier.isBlank()) {
+            throw new IllegalArgumentException("Invalid requested path or identifier.");
+        }
+
+        final var key = RedisRateLimitScripts.keyPrefix(RateLimitAlgorithm.FIXED_WINDOW) + createKey(requestPath, identifier);
+        final var lease = leases.getIfPresent(key);
+
+        if (lease != null && !lease.isExpired()) {
+            final var decision = lease.tryConsume(allowedRequests);
+
+            if (decision != null) {
+                redisCallsSavedCounter.increment();
+                return Mono.just(decision);
+            }
+        }
+
+        // the timeout is applied to the shared lease request, so a caller giving up never leaves it behind
+        return fallbackOnError(key, acquireLease(key, allowedRequests, leaseSize)
+                .flatMap(newLease -> {
+                    final var decision = newLease.tryConsume(allowedRequests);
+                    // the new lease was drained by concurrent requests, lease again
+                    return decision != null ? Mono.just(decision) : Mono.defer(() -> tryAcquire(apiRoute, requestPath, identifier));
+                }));
+    }
+
+    /**
+     * Leases a block of quota from Redis. Concurrent lease requests for the same key share one Redis call, which
+     * fails after the Redis timeout so the next request for the key calls Redis again.
+     */
+    private Mono<Lease> acquireLease(final String key, final int allowedRequests, final int leaseSize) {
+        final var args = List.of(String.valueOf(allowedRequests), String.valueOf(WINDOW_MS), String.valueOf(leaseSize));
+
+        return pendingLeases.computeIfAbsent(key, k -> redisTemplate.execute(LEASE_SCRIPT, List.of(k), args)
+                .next()
+                .map(Lease::fromScriptResult)
+                .doOnNext(lease -> {
+                    leaseCounter.increment();
+                    leases.put(k, lease);
+                    log.debug("Leased {} request(s) for key: {}", lease.granted, k);
+                })
+                .timeout(timeout)
+                .doOnTerminate(() -> pendingLeases.remove(k))
+                .cache());
+    }
+
+    private void updateLeaseSizes(final Environment environment) {
+        final var defaultFraction = environment.getProperty("rate-limiter.lease.default-fraction", "0.1");
+
+        for (final var path : allowedRequests.keySet()) {
+            final var fraction = environment.getProperty("rate-limiter.lease.fractions." + path, defaultFraction);
+
+            try {
+                final var leaseSize = (int) Math.floor(allowedRequests.get(path) * Double.parseDouble(fraction));
+                leaseSizes.put(path, Math.max(1, leaseSize));
+                log.info("Rate limit lease size for {}: {}", path, leaseSizes.get(path));
+            } catch (Exception e) {
+                throw new RateLimiterConfigurationException("Failed to configure rate limit lease for " + path, e);
+            }
+        }
+    }
+
+    /**
+     * A block of quota leased from Redis for a single key, valid until the Redis window resets.
+     */
+    private static final class Lease {
+
+        private final long granted;
+        private final AtomicLong available;
+        private final long remainingInRedis;
+        private final long expiresAtMillis;
+
+        private Lease(final long granted, final long remainingInRedis, final long resetAfterMillis) {
+            this.granted = granted;
+            this.available = new AtomicLong(granted);
+            this.remainingInRedis = remainingInRedis;
+            this.expiresAtMillis = System.currentTimeMillis() + resetAfterMillis;
+        }
+
+        private static Lease fromScriptResult(final List<?> result) {
+            if (result == null || result.size() != 3) {
+                throw new IllegalStateException("Unexpected rate limit lease script result: " + result);
+            }
+
+            return new Lease(
+                    ((Number) result.get(0)).longValue(),
+                    Math.max(0, ((Number) result.get(1)).longValue()),
+                    Math.max(0, ((Number) result.get(2)).longValue())
+            );
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAtMillis;
+        }
+
+        /**
+         * Spends one request of the lease.
+         *
+         * @return the decision, or {@code null} if the lease is used up and a new one has to be requested
+         */
+        private RateLimitDecision tryConsume(final long allowedRequests) {
+            final var resetAfterMillis = Math.max(0, expiresAtMillis - System.currentTimeMillis());
+
+            if (granted == 0) {
+                return new RateLimitDecision(false, allowedRequests, 0, resetAfterMillis);
+            }
+
+            final var left = available.decrementAndGet();
+
+            if (left < 0) {
+                return null;
+            }
+
+            return new RateLimitDecision(true, allowedRequests, left + remainingInRedis, resetAfterMillis);
+        }
+
+    }
+
+}
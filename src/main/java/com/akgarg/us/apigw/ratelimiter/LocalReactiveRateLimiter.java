@@ -0,0 +1,24 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code LocalReactiveRateLimiter} exposes the in-memory {@link RateLimiter} through the {@link ReactiveRateLimiter}
+ * contract. The in-memory check never performs I/O, so it is evaluated directly on the subscribing thread.
+ */
+@Service
+@Profile({"default", "dev"})
+@RequiredArgsConstructor
+public class LocalReactiveRateLimiter implements ReactiveRateLimiter {
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(final String apiRoute, final String requestPath, final String identifier) {
+        return Mono.fromSupplier(() -> rateLimiter.tryAcquire(apiRoute, requestPath, identifier));
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import java.util.Arrays;
+
+/**
+ * Algorithms available to rate limit an API route, selected per route with
+ * {@code rate-limiter.algorithms.{path}}.
+ * <p>
+ * Every algorithm keeps O(1) state per rate limit key, both in memory and in Redis:
+ * <ul>
+ * <li>{@link #FIXED_WINDOW}: a counter reset every minute. Cheapest, but allows up to twice the limit around
+ * window boundaries.</li>
+ * <li>{@link #SLIDING_WINDOW}: counters of the current and previous minute, weighted by the overlap of the
+ * previous minute with the sliding window. Smooths boundary bursts.</li>
+ * <li>{@link #TOKEN_BUCKET}: the generic cell rate algorithm (GCRA), storing a single theoretical arrival time.
+ * Requests are spaced evenly over the minute with a configurable burst capacity
+ * ({@code rate-limiter.burst.{path}}).</li>
+ * </ul>
+ */
+public enum RateLimitAlgorithm {
+
+    FIXED_WINDOW("fixed-window"),
+    SLIDING_WINDOW("sliding-window"),
+    TOKEN_BUCKET("token-bucket");
+
+    private final String value;
+
+    RateLimitAlgorithm(final String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Resolves an algorithm from its configuration value. {@code gcra} is accepted as an alias of
+     * {@link #TOKEN_BUCKET}.
+     *
+     * @param value the configured algorithm name
+     * @return the matching {@link RateLimitAlgorithm}
+     * @throws IllegalArgumentException if the value does not match any algorithm
+     */
+    public static RateLimitAlgorithm fromValue(final String value) {
+        if ("gcra".equalsIgnoreCase(value)) {
+            return TOKEN_BUCKET;
+        }
+
+        return Arrays.stream(values())
+                .filter(algorithm -> algorithm.value.equalsIgnoreCase(value) || algorithm.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown rate limit algorithm: " + value));
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+/**
+ * Outcome of a rate limit check for a single request.
+ *
+ * @param allowed          {@code true} if the request may proceed, {@code false} if it is rate-limited
+ * @param limit            the number of requests allowed for the interval, or {@code -1} if the route is not limited
+ * @param remaining        the number of requests still allowed in the current interval
+ * @param resetAfterMillis milliseconds until the current interval resets
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining, long resetAfterMillis) {
+
+    private static final RateLimitDecision UNLIMITED = new RateLimitDecision(true, -1, -1, 0);
+
+    /**
+     * Decision returned for routes that have no rate limit configured.
+     */
+    public static RateLimitDecision unlimited() {
+        return UNLIMITED;
+    }
+
+    public boolean isLimited() {
+        return limit >= 0;
+    }
+
+}
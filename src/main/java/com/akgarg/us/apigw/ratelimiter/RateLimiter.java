@@ -26,6 +26,22 @@ public interface RateLimiter {
      * rate for the specified path and identifier), otherwise {@code false}.
      * @throws IllegalArgumentException if either of the parameters is {@code null} or empty.
      */
-    boolean isRateLimited(String apiRoute, String requestPath, String identifier);
+    default boolean isRateLimited(String apiRoute, String requestPath, String identifier) {
+        return !tryAcquire(apiRoute, requestPath, identifier).allowed();
+    }
+
+    /**
+     * Consumes one request from the quota of the given path and client identifier.
+     *
+     * <p>Unlike {@link #isRateLimited(String, String, String)}, the returned {@link RateLimitDecision} also
+     * carries the remaining quota and the time until the current interval resets.</p>
+     *
+     * @param apiRoute    the base route of API that client is trying to access
+     * @param requestPath the API path or endpoint that the client is trying to access.
+     * @param identifier  the client identifier for the request, such as the user's IP address or user ID.
+     * @return the {@link RateLimitDecision} for the request
+     * @throws IllegalArgumentException if either of the parameters is {@code null} or empty.
+     */
+    RateLimitDecision tryAcquire(String apiRoute, String requestPath, String identifier);
 
 }
@@ -0,0 +1,23 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@code ReactiveRateLimiter} interface is the non-blocking counterpart of {@link RateLimiter}.
+ * <p>
+ * Implementations must never block the calling thread, so that rate limit checks can be composed into the
+ * gateway filter chain running on the Reactor Netty event loop.
+ */
+public interface ReactiveRateLimiter {
+
+    /**
+     * Consumes one request from the quota of the given path and client identifier.
+     *
+     * @param apiRoute    the base route of API that client is trying to access
+     * @param requestPath the API path or endpoint that the client is trying to access.
+     * @param identifier  the client identifier for the request, such as the user's IP address or user ID.
+     * @return a {@link Mono} emitting the {@link RateLimitDecision} for the request
+     */
+    Mono<RateLimitDecision> tryAcquire(String apiRoute, String requestPath, String identifier);
+
+}
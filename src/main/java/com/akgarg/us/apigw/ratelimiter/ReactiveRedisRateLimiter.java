@@ -0,0 +1,101 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+import static com.akgarg.us.apigw.ratelimiter.RedisRateLimitScripts.WINDOW_MS;
+
+/**
+ * {@code ReactiveRedisRateLimiter} implements the {@link RateLimitAlgorithm}s backed by Redis.
+ * <p>
+ * The check and update of the rate limit state are performed atomically by a server-side Lua script per algorithm
+ * (see {@link RedisRateLimitScripts}), so every request costs a single round trip and concurrent requests can never
+ * push the counter past the configured limit. The scripts run through the Lettuce based
+ * {@link ReactiveStringRedisTemplate}, so a rate limit check never parks a Netty I/O thread. If Redis does not answer within
+ * {@code rate-limiter.redis.timeout-ms} (or fails), the request is let through and counted in
+ * {@code urlshortener_api_gateway_rate_limiter_fallback_total}, so a slow Redis degrades rate limiting instead of
+ * the traffic it protects.
+ * <p>
+ * When {@code rate-limiter.lease.enabled} is set, {@link LeasedRedisRateLimiter} is used instead.
+ */
+@Service
+@Slf4j
+@Profile("prod")
+@ConditionalOnProperty(name = "rate-limiter.lease.enabled", havingValue = "false", matchIfMissing = true)
+public class ReactiveRedisRateLimiter extends AbstractRateLimiter implements ReactiveRateLimiter {
+
+    final ReactiveStringRedisTemplate redisTemplate;
+    final Duration timeout;
+    private final Counter fallbackCounter;
+
+    public ReactiveRedisRateLimiter(final ReactiveStringRedisTemplate redisTemplate,
+                                    final Environment environment,
+                                    final MeterRegistry meterRegistry) {
+        super();
+        updateAllowedRequestsPerMinute(Objects.requireNonNull(environment, "environment is required"));
+        updateRateLimitAlgorithms(environment);
+        this.redisTemplate = redisTemplate;
+        this.timeout = Duration.ofMillis(Long.parseLong(environment.getProperty("rate-limiter.redis.timeout-ms", "50")));
+        this.fallbackCounter = Counter.builder("urlshortener_api_gateway_rate_limiter_fallback_total")
+                .description("Number of rate limit checks let through because Redis was slow or unavailable")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(final String apiRoute, final String requestPath, final String identifier) {
+        if (requestPath == null || identifier == null || requestPath.isBlank() || identifier.isBlank()) {
+            throw new IllegalArgumentException("Invalid requested path or identifier.");
+        }
+
+        final var allowedRequests = AbstractRateLimiter.allowedRequests.get(apiRoute);
+
+        if (allowedRequests == null) {
+            log.warn("No rate limit configuration found for route: {}.", apiRoute);
+            return Mono.just(RateLimitDecision.unlimited());
+        }
+
+        final var algorithm = getAlgorithm(apiRoute);
+        final var key = RedisRateLimitScripts.keyPrefix(algorithm) + createKey(requestPath, identifier);
+        final var args = List.of(
+                String.valueOf(allowedRequests),
+                String.valueOf(WINDOW_MS),
+                String.valueOf(getBurstCapacity(apiRoute))
+        );
+
+        return withFallback(key, redisTemplate.execute(RedisRateLimitScripts.script(algorithm), List.of(key), args)
+                .next()
+                .map(result -> RedisRateLimitScripts.toDecision(key, allowedRequests, result)));
+    }
+
+    /**
+     * Applies the Redis timeout to a rate limit check and lets the request through if the check fails or times out.
+     */
+    Mono<RateLimitDecision> withFallback(final String key, final Mono<RateLimitDecision> decision) {
+        return fallbackOnError(key, decision.timeout(timeout));
+    }
+
+    /**
+     * Lets the request through if a rate limit check, which must apply {@link #timeout} itself, fails or times out.
+     */
+    Mono<RateLimitDecision> fallbackOnError(final String key, final Mono<RateLimitDecision> decision) {
+        return decision
+                .onErrorResume(e -> {
+                    fallbackCounter.increment();
+                    log.warn("Rate limit check failed for key: {}, allowing request: {}", key, e.toString());
+                    return Mono.just(RateLimitDecision.unlimited());
+                })
+                .defaultIfEmpty(RateLimitDecision.unlimited());
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Server-side Lua scripts run by {@link ReactiveRedisRateLimiter}.
+ * <p>
+ * There is one script per {@link RateLimitAlgorithm}. Each one evaluates and updates the state of a single key
+ * atomically in one round trip. All scripts take {@code (limit, window in ms, burst capacity)} as arguments and
+ * reply with {@code {allowed, remaining, reset after ms}}.
+ */
+@Slf4j
+final class RedisRateLimitScripts {
+
+    static final int WINDOW_MS = (int) Duration.ofMinutes(1).toMillis();
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> FIXED_WINDOW_SCRIPT = RedisScript.of(
+            new ClassPathResource("redis/fixed-window-rate-limiter.lua"), List.class
+    );
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SLIDING_WINDOW_SCRIPT = RedisScript.of(
+            new ClassPathResource("redis/sliding-window-rate-limiter.lua"), List.class
+    );
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = RedisScript.of(
+            new ClassPathResource("redis/token-bucket-rate-limiter.lua"), List.class
+    );
+
+    private RedisRateLimitScripts() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    @SuppressWarnings("rawtypes")
+    static RedisScript<List> script(final RateLimitAlgorithm algorithm) {
+        return switch (algorithm) {
+            case FIXED_WINDOW -> FIXED_WINDOW_SCRIPT;
+            case SLIDING_WINDOW -> SLIDING_WINDOW_SCRIPT;
+            case TOKEN_BUCKET -> TOKEN_BUCKET_SCRIPT;
+        };
+    }
+
+    /**
+     * Returns the Redis key prefix of an algorithm. Each algorithm stores a different data type, so keys are
+     * namespaced to keep a changed route configuration from hitting {@code WRONGTYPE} errors.
+     */
+    static String keyPrefix(final RateLimitAlgorithm algorithm) {
+        return switch (algorithm) {
+            case FIXED_WINDOW -> "rateLimit:";
+            case SLIDING_WINDOW -> "rateLimit:sw:";
+            case TOKEN_BUCKET -> "rateLimit:tb:";
+        };
+    }
+
+    /**
+     * Converts the {@code {allowed, remaining, reset after ms}} reply of a rate limit script into a
+     * {@link RateLimitDecision}. A malformed reply is logged and treated as not rate-limited.
+     */
+    static RateLimitDecision toDecision(final String key, final long allowedRequests, final List<?> result) {
+        if (result == null || result.size() != 3) {
+            log.warn("Unexpected rate limit script result for key: {}: {}", key, result);
+            return RateLimitDecision.unlimited();
+        }
+
+        final var allowed = ((Number) result.get(0)).longValue() == 1;
+        final var remaining = Math.max(0, ((Number) result.get(1)).longValue());
+        final var resetAfterMillis = Math.max(0, ((Number) result.get(2)).longValue());
+
+        if (!allowed) {
+            log.warn("Rate limit exceeded for key: {}. Allowed: {}", key, allowedRequests);
+        }
+
+        return new RateLimitDecision(allowed, allowedRequests, remaining, resetAfterMillis);
+    }
+
+}
@@ -2,30 +2,61 @@ package com.akgarg.us.apigw.security;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpMethod;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+/**
+ * {@code AdminEndpointConfig} is the single source of the admin only endpoints. It feeds both the authorization
+ * rules of {@link SpringSecurityConfig} and the per-request check of
+ * {@link RequestHeaderAdminUserDetailsExtractionFilter}.
+ * <p>
+ * The endpoints are indexed by {@link HttpMethod} with their path patterns precompiled, so requests with a method
+ * that has no admin endpoint are rejected with a single map lookup, and a GET redirect is checked against a single
+ * pattern.
+ */
 @Slf4j
 final class AdminEndpointConfig {
 
-    private static final Collection<AdminEndpoint> ADMIN_ONLY_ENDPOINTS = new ArrayList<>();
-    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final Collection<AdminEndpoint> ADMIN_ONLY_ENDPOINTS;
+    private static final Map<HttpMethod, List<PathPattern>> ADMIN_ONLY_PATTERNS_BY_METHOD;
 
     static {
         final var subscriptionEndpoint = "/api/v1/subscriptions";
         final var subscriptionPackEndpoint = "/api/v1/subscriptions/packs/**";
+        final var shortCodesEndpoint = "/admin/management/shortcodes/**";
+        final var redirectCacheEndpoint = "/admin/management/redirectcache/**";
+        // lists client IPs and user ids
+        final var heavyHittersEndpoint = "/admin/management/heavyhitters/**";
+        // lists backend addresses
+        final var outliersEndpoint = "/admin/management/outliers/**";
 
-        ADMIN_ONLY_ENDPOINTS.addAll(
-                List.of(new AdminEndpoint(subscriptionEndpoint, HttpMethod.POST),
-                        new AdminEndpoint(subscriptionPackEndpoint, HttpMethod.POST),
-                        new AdminEndpoint(subscriptionPackEndpoint, HttpMethod.PATCH),
-                        new AdminEndpoint(subscriptionPackEndpoint, HttpMethod.DELETE)
-                )
+        ADMIN_ONLY_ENDPOINTS = List.of(
+                new AdminEndpoint(subscriptionEndpoint, HttpMethod.POST),
+                new AdminEndpoint(subscriptionPackEndpoint, HttpMethod.POST),
+                new AdminEndpoint(subscriptionPackEndpoint, HttpMethod.PATCH),
+                new AdminEndpoint(subscriptionPackEndpoint, HttpMethod.DELETE),
+                new AdminEndpoint(shortCodesEndpoint, HttpMethod.POST),
+                new AdminEndpoint(shortCodesEndpoint, HttpMethod.DELETE),
+                new AdminEndpoint(redirectCacheEndpoint, HttpMethod.DELETE),
+                new AdminEndpoint(heavyHittersEndpoint, HttpMethod.GET),
+                new AdminEndpoint(outliersEndpoint, HttpMethod.GET)
         );
+
+        ADMIN_ONLY_PATTERNS_BY_METHOD = Map.copyOf(ADMIN_ONLY_ENDPOINTS.stream()
+                .collect(Collectors.groupingBy(
+                        AdminEndpoint::httpMethod,
+                        Collectors.mapping(endpoint -> PathPatternParser.defaultInstance.parse(endpoint.path()), Collectors.toUnmodifiableList())
+                )));
+    }
+
+    private AdminEndpointConfig() {
+        throw new IllegalAccessError("Utility class");
     }
 
     public static Collection<AdminEndpoint> getAdminOnlyEndpoints() {
@@ -33,8 +64,34 @@ final class AdminEndpointConfig {
     }
 
     public static boolean isAdminEndpoint(final String path, final HttpMethod httpMethod) {
-        return ADMIN_ONLY_ENDPOINTS.stream()
-                .anyMatch(endpoint -> PATH_MATCHER.match(endpoint.path(), path) && endpoint.httpMethod().equals(httpMethod));
+        return isAdminEndpoint(PathContainer.parsePath(path), httpMethod);
+    }
+
+    /**
+     * Checks whether the request targets an admin only endpoint.
+     *
+     * @param path       the parsed request path, e.g. {@code request.getPath().pathWithinApplication()}
+     * @param httpMethod the request method
+     * @return {@code true} if the method and path match an admin only endpoint
+     */
+    public static boolean isAdminEndpoint(final PathContainer path, final HttpMethod httpMethod) {
+        if (httpMethod == null) {
+            return false;
+        }
+
+        final var patterns = ADMIN_ONLY_PATTERNS_BY_METHOD.get(httpMethod);
+
+        if (patterns == null) {
+            return false;
+        }
+
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matches(path)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     public record AdminEndpoint(String path, HttpMethod httpMethod) {
@@ -1,52 +1,35 @@
 package com.akgarg.us.apigw.security;
 
-import com.akgarg.us.apigw.error.ApiErrorResponse;
-import com.akgarg.us.apigw.exception.ApiGatewayException;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.akgarg.us.apigw.error.PreEncodedResponse;
+import com.akgarg.us.apigw.filter.RequestIdFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_HEADER_NAME;
-
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class ApiGatewayAuthenticationEntryPoint implements ServerAuthenticationEntryPoint {
 
-    private final ObjectMapper objectMapper;
+    private final PreEncodedResponse unauthorizedResponse;
 
-    @Override
-    public Mono<Void> commence(final ServerWebExchange exchange, final AuthenticationException ex) {
-        final var errorResponse = new ApiErrorResponse(HttpStatus.UNAUTHORIZED.value(),
-                extractRequestId(exchange),
+    public ApiGatewayAuthenticationEntryPoint(final ObjectMapper objectMapper) {
+        this.unauthorizedResponse = PreEncodedResponse.apiError(objectMapper,
+                HttpStatus.UNAUTHORIZED,
                 "Authentication is required to access requested resource");
+    }
 
-        final String responseBody;
-
-        try {
-            responseBody = objectMapper.writeValueAsString(errorResponse);
-        } catch (JsonProcessingException e) {
-            throw new ApiGatewayException("Error stringify unauthorized response JSON", e);
-        }
-
-        return exchange.getResponse().writeWith(Mono.fromSupplier(() -> {
-            var response = exchange.getResponse();
-            response.setStatusCode(HttpStatus.UNAUTHORIZED);
-            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-            return response.bufferFactory().wrap(responseBody.getBytes());
-        }));
+    @Override
+    public Mono<Void> commence(final ServerWebExchange exchange, final AuthenticationException ex) {
+        return unauthorizedResponse.write(exchange, extractRequestId(exchange));
     }
 
     private String extractRequestId(final ServerWebExchange exchange) {
-        return exchange.getRequest().getHeaders().getFirst(REQUEST_ID_HEADER_NAME);
+        return RequestIdFilter.getRequestId(exchange);
     }
 
-}
\ No newline at end of file
+}
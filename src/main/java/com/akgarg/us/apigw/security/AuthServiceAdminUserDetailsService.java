@@ -1,7 +1,14 @@
 package com.akgarg.us.apigw.security;
 
-import lombok.AllArgsConstructor;
+import com.akgarg.us.apigw.utils.RequestIdGenerator;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.env.Environment;
@@ -16,73 +23,133 @@ import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
+import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_ATTRIBUTE_NAME;
 import static com.akgarg.us.apigw.filter.RequestIdFilter.REQUEST_ID_HEADER_NAME;
 
+/**
+ * {@code AuthServiceAdminUserDetailsService} resolves admin users by asking the auth service whether a user id
+ * belongs to an admin.
+ * <p>
+ * Verdicts are kept per user id in a bounded asynchronous cache. Concurrent misses for the same user share one
+ * auth service call, entries older than {@code auth.service.admin-cache.refresh-seconds} are refreshed in the
+ * background on their next access while the current verdict keeps being served, and entries are dropped after
+ * {@code auth.service.admin-cache.expire-seconds}. Both admin and non-admin verdicts are cached; failed calls are
+ * not, and a failed background refresh keeps the previous verdict.
+ * <p>
+ * A revoked admin therefore keeps admin rights for up to {@code refresh-seconds} (default 10) plus the one request
+ * that triggers the refresh, and for up to {@code expire-seconds} (default 30) while the auth service cannot be
+ * reached.
+ */
 @Slf4j
 @Component
 @Profile("prod")
-@AllArgsConstructor
 public class AuthServiceAdminUserDetailsService implements ReactiveUserDetailsService {
 
+    private static final String CACHE_NAME = "admin_user_verification";
+
     private static final ParameterizedTypeReference<Map<String, Object>> parameterizedTypeReference = new ParameterizedTypeReference<>() {
     };
 
-    private final WebClient.Builder authServiceWebClientBuilder;
-    private final Environment environment;
+    private final WebClient authServiceWebClient;
+    private final String verifyAdminEndpoint;
+    private final AsyncLoadingCache<String, Boolean> adminVerdictCache;
 
-    @Override
-    public Mono<UserDetails> findByUsername(final String username) throws UsernameNotFoundException {
-        final String verifyAdminEndpoint = environment.getProperty(
+    @Autowired
+    public AuthServiceAdminUserDetailsService(@Qualifier("authServiceWebClientBuilder") final WebClient.Builder authServiceWebClientBuilder,
+                                              final Environment environment,
+                                              final MeterRegistry meterRegistry) {
+        this(authServiceWebClientBuilder, environment, meterRegistry, Ticker.systemTicker());
+    }
+
+    AuthServiceAdminUserDetailsService(final WebClient.Builder authServiceWebClientBuilder,
+                                       final Environment environment,
+                                       final MeterRegistry meterRegistry,
+                                       final Ticker ticker) {
+        this.authServiceWebClient = authServiceWebClientBuilder.build();
+        this.verifyAdminEndpoint = environment.getProperty(
                 "auth.service.endpoints.verify-admin",
                 "/api/v1/auth/verify-admin"
         );
+        this.adminVerdictCache = Caffeine.newBuilder()
+                .maximumSize(Long.parseLong(environment.getProperty("auth.service.admin-cache.max-size", "10000")))
+                .refreshAfterWrite(Duration.ofSeconds(Long.parseLong(environment.getProperty("auth.service.admin-cache.refresh-seconds", "10"))))
+                .expireAfterWrite(Duration.ofSeconds(Long.parseLong(environment.getProperty("auth.service.admin-cache.expire-seconds", "30"))))
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync((userId, executor) -> verifyAdmin(userId, null).toFuture());
+        CaffeineCacheMetrics.monitor(meterRegistry, adminVerdictCache, CACHE_NAME);
+    }
 
-        return authServiceWebClientBuilder.build()
-                .post()
+    @Override
+    public Mono<UserDetails> findByUsername(final String username) throws UsernameNotFoundException {
+        return Mono.deferContextual(ctx -> {
+                    final String requestId = ctx.getOrDefault(REQUEST_ID_ATTRIBUTE_NAME, null);
+                    // suppress cancellation so that a cancelled request does not cancel the load shared with other callers
+                    return Mono.fromFuture(adminVerdictCache.get(username, (userId, executor) -> verifyAdmin(userId, requestId).toFuture()), true);
+                })
+                .flatMap(admin -> {
+                    if (Boolean.TRUE.equals(admin)) {
+                        return Mono.just((UserDetails) new User(username, "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+                    }
+                    return Mono.error(new UsernameNotFoundException("No user found with id: %s".formatted(username)));
+                })
+                .onErrorResume(this::onErrorResume);
+    }
+
+    /**
+     * Asks the auth service whether the user is an admin. The call is made with the id of the request that triggered
+     * it, or a new id for background refreshes.
+     *
+     * @return a {@link Mono} emitting the verdict, or an error if no verdict could be obtained
+     */
+    private Mono<Boolean> verifyAdmin(final String username, final String requestId) {
+        final var verifyRequestId = requestId != null ? requestId : RequestIdGenerator.generate();
+
+        return authServiceWebClient.post()
                 .uri(uriBuilder -> uriBuilder.path(verifyAdminEndpoint).build())
-                .header(REQUEST_ID_HEADER_NAME, UUID.randomUUID().toString())
+                .header(REQUEST_ID_HEADER_NAME, verifyRequestId)
                 .bodyValue(Map.of("user_id", username))
                 .exchangeToMono(clientResponse -> handleResponse(clientResponse, username))
-                .onErrorResume(this::onErrorResume);
+                // the load is subscribed to by the cache, outside the context of the request
+                .contextWrite(Context.of(REQUEST_ID_ATTRIBUTE_NAME, verifyRequestId));
     }
 
-    private Mono<UserDetails> handleResponse(final ClientResponse clientResponse, final String username) {
+    private Mono<Boolean> handleResponse(final ClientResponse clientResponse, final String username) {
         if (clientResponse.statusCode().isError()) {
             return handleErrorResponse(clientResponse, username);
         }
 
         return clientResponse.bodyToMono(parameterizedTypeReference)
-                .flatMap(response -> processResponse(response, username));
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty response received from auth service")))
+                .flatMap(this::processResponse);
     }
 
-    private Mono<UserDetails> handleErrorResponse(final ClientResponse clientResponse, final String username) {
+    private Mono<Boolean> handleErrorResponse(final ClientResponse clientResponse, final String username) {
+        if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
+            log.debug("User not found with id: {}", username);
+            return clientResponse.releaseBody().thenReturn(Boolean.FALSE);
+        }
+
         return clientResponse.bodyToMono(String.class)
+                .defaultIfEmpty("")
                 .flatMap(body -> {
-                    if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
-                        return Mono.error(new UsernameNotFoundException("User not found with id: " + username));
-                    }
-
                     log.error("Error response received from auth service: {}", body);
                     return Mono.error(new ResponseStatusException(clientResponse.statusCode(), "Non 200 response received from auth service"));
                 });
     }
 
-    private Mono<UserDetails> processResponse(final Map<String, Object> response, final String username) {
+    private Mono<Boolean> processResponse(final Map<String, Object> response) {
         if (response == null || response.isEmpty()) {
             return Mono.error(new IllegalStateException("Invalid response received from auth service"));
         }
 
-        final boolean success = Boolean.parseBoolean(String.valueOf(response.get("success")));
-        if (success) {
-            return Mono.just(new User(username, "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
-        } else {
-            return Mono.error(new UsernameNotFoundException("No user found with id: %s".formatted(username)));
-        }
+        return Mono.just(Boolean.parseBoolean(String.valueOf(response.get("success"))));
     }
 
     private Mono<UserDetails> onErrorResume(final Throwable e) {
@@ -1,5 +1,7 @@
 package com.akgarg.us.apigw.security;
 
+import com.akgarg.us.apigw.auth.AuthServiceEndpointRegistry;
+import com.akgarg.us.apigw.auth.AuthTokenValidator;
 import jakarta.annotation.Nonnull;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +15,10 @@ import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 import reactor.util.context.Context;
 
+/**
+ * Authenticates callers of admin endpoints. The user id header alone can be spoofed, so the caller's auth token is
+ * validated against the auth service first; a missing or invalid token leaves the request unauthenticated.
+ */
 @Slf4j
 @Component
 @AllArgsConstructor
@@ -23,10 +29,12 @@ public class RequestHeaderAdminUserDetailsExtractionFilter implements WebFilter
     private static final String USER_ID_HEADER_NAME = "X-USER-ID";
 
     private final ReactiveUserDetailsService userDetailsService;
+    private final AuthTokenValidator authTokenValidator;
+    private final AuthServiceEndpointRegistry authServiceEndpointRegistry;
 
     @Override
     public Mono<Void> filter(@Nonnull final ServerWebExchange exchange, @Nonnull final WebFilterChain filterChain) {
-        if (!AdminEndpointConfig.isAdminEndpoint(exchange.getRequest().getPath().value(), exchange.getRequest().getMethod())) {
+        if (!AdminEndpointConfig.isAdminEndpoint(exchange.getRequest().getPath().pathWithinApplication(), exchange.getRequest().getMethod())) {
             return filterChain.filter(exchange);
         }
 
@@ -39,14 +47,30 @@ public class RequestHeaderAdminUserDetailsExtractionFilter implements WebFilter
 
             log.info("Checking if '{}' is admin user", username);
 
-            if (username != null && !username.isBlank()) {
-                return authenticateUser(username)
-                        .flatMap(authToken -> filterChain.filter(exchange)
-                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authToken))
-                                .contextWrite(Context.of(AUTH_SET_CONTEXT_KEY, true)));
+            if (username == null || username.isBlank()) {
+                return filterChain.filter(exchange);
             }
 
-            return filterChain.filter(exchange);
+            final var token = AuthTokenValidator.extractAuthToken(exchange.getRequest());
+
+            if (token.isEmpty()) {
+                log.info("Admin request from '{}' has no auth token", username);
+                return filterChain.filter(exchange);
+            }
+
+            return authTokenValidator.validate(username, token.get(), authServiceEndpointRegistry::getEndpoints)
+                    .onErrorReturn(false)
+                    .flatMap(tokenValidated -> {
+                        if (Boolean.FALSE.equals(tokenValidated)) {
+                            log.info("Auth token validation failed for admin request from '{}'", username);
+                            return filterChain.filter(exchange);
+                        }
+
+                        return authenticateUser(username)
+                                .flatMap(authToken -> filterChain.filter(exchange)
+                                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authToken))
+                                        .contextWrite(Context.of(AUTH_SET_CONTEXT_KEY, true)));
+                    });
         });
     }
 
@@ -0,0 +1,39 @@
+package com.akgarg.us.apigw.utils;
+
+public final class HashUtils {
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private HashUtils() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units of the value, finalized with {@link #mix(long)}. The seed is mixed
+     * into the offset basis, so keys crafted to collide under one seed do not collide under another.
+     */
+    public static long hash64(final String value, final long seed) {
+        var hash = FNV_OFFSET_BASIS ^ seed;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3: spreads every input bit over the whole output.
+     */
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
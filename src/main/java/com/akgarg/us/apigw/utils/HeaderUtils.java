@@ -0,0 +1,36 @@
+package com.akgarg.us.apigw.utils;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.Set;
+
+public final class HeaderUtils {
+
+    /**
+     * Request headers that belong to the connection to the gateway and must not be forwarded when the gateway sends
+     * a request of its own (revalidation, hedge) on behalf of a client request.
+     */
+    private static final Set<String> UNFORWARDED_HEADERS = Set.of(
+            HttpHeaders.HOST.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.UPGRADE.toLowerCase()
+    );
+
+    private HeaderUtils() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Copies the headers of a client request to a request sent by the gateway, leaving out the connection headers.
+     */
+    public static void copyForwardableHeaders(final HttpHeaders from, final HttpHeaders to) {
+        from.forEach((name, values) -> {
+            if (!UNFORWARDED_HEADERS.contains(name.toLowerCase())) {
+                to.addAll(name, values);
+            }
+        });
+    }
+
+}
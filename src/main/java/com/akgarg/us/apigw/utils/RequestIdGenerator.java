@@ -0,0 +1,48 @@
+package com.akgarg.us.apigw.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates time ordered, 26 character request ids in the ULID layout: a 48 bit millisecond timestamp followed by
+ * 80 random bits, encoded with the Crockford base32 alphabet.
+ * <p>
+ * Unlike {@link java.util.UUID#randomUUID()}, which draws from a shared {@link java.security.SecureRandom}, the
+ * random part comes from {@link ThreadLocalRandom}, so event loop threads never contend. Request ids only need to
+ * be unique, not unpredictable.
+ */
+public final class RequestIdGenerator {
+
+    public static final int REQUEST_ID_LENGTH = 26;
+
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private RequestIdGenerator() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    public static String generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    static String generate(final long timestampMillis) {
+        final var random = ThreadLocalRandom.current();
+        final var chars = new char[REQUEST_ID_LENGTH];
+
+        // 48 bit timestamp in 10 characters (the first one only carries 3 bits)
+        for (int i = 9; i >= 0; i--) {
+            chars[i] = ENCODING[(int) ((timestampMillis >>> ((9 - i) * 5)) & 0x1F)];
+        }
+
+        // 80 random bits in 16 characters, 40 bits per long
+        final var high = random.nextLong();
+        final var low = random.nextLong();
+
+        for (int i = 0; i < 8; i++) {
+            chars[10 + i] = ENCODING[(int) ((high >>> ((7 - i) * 5)) & 0x1F)];
+            chars[18 + i] = ENCODING[(int) ((low >>> ((7 - i) * 5)) & 0x1F)];
+        }
+
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,31 @@
+-- Atomically leases a block of a fixed window quota to a gateway node.
+--
+-- The lease is taken from the same counter used by fixed-window-rate-limiter.lua, so leasing and non-leasing
+-- nodes share one quota and the limit is never exceeded.
+--
+-- KEYS[1] - rate limit key
+-- ARGV[1] - allowed requests in the window
+-- ARGV[2] - window length in milliseconds
+-- ARGV[3] - requested lease size
+--
+-- Returns {granted requests, remaining requests in the window, milliseconds until the window resets}
+
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local granted = math.min(tonumber(ARGV[3]), limit - current)
+
+if granted > 0 then
+    current = redis.call('INCRBY', KEYS[1], granted)
+else
+    granted = 0
+end
+
+local ttl = redis.call('PTTL', KEYS[1])
+
+if ttl < 0 then
+    redis.call('PEXPIRE', KEYS[1], window)
+    ttl = window
+end
+
+return {granted, math.max(0, limit - current), ttl}
@@ -0,0 +1,26 @@
+-- Atomic fixed window rate limiter.
+--
+-- KEYS[1] - rate limit key
+-- ARGV[1] - allowed requests in the window
+-- ARGV[2] - window length in milliseconds
+--
+-- Returns {allowed (1|0), remaining requests in the window, milliseconds until the window resets}
+
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local allowed = 0
+
+if current < limit then
+    current = redis.call('INCR', KEYS[1])
+    allowed = 1
+end
+
+local ttl = redis.call('PTTL', KEYS[1])
+
+if ttl < 0 then
+    redis.call('PEXPIRE', KEYS[1], window)
+    ttl = window
+end
+
+return {allowed, math.max(0, limit - current), ttl}
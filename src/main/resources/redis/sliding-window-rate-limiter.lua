@@ -0,0 +1,42 @@
+-- Atomic sliding window counter rate limiter.
+--
+-- The request counts of the current and the previous window are kept in a single hash. The previous count is
+-- weighted by the part of the previous window still covered by the sliding window.
+--
+-- KEYS[1] - rate limit key
+-- ARGV[1] - allowed requests in the window
+-- ARGV[2] - window length in milliseconds
+--
+-- Returns {allowed (1|0), remaining requests in the window, milliseconds until the current window ends}
+
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local index = math.floor(now / window)
+
+local state = redis.call('HMGET', KEYS[1], 'index', 'previous', 'current')
+local storedIndex = state[1] and tonumber(state[1]) or -1
+local previous = 0
+local current = 0
+
+if storedIndex == index then
+    previous = tonumber(state[2])
+    current = tonumber(state[3])
+elseif storedIndex == index - 1 then
+    previous = tonumber(state[3])
+end
+
+local elapsed = now - index * window
+local estimated = previous * (window - elapsed) / window + current
+local allowed = 0
+
+if estimated < limit then
+    current = current + 1
+    estimated = estimated + 1
+    allowed = 1
+    redis.call('HSET', KEYS[1], 'index', index, 'previous', previous, 'current', current)
+    redis.call('PEXPIRE', KEYS[1], window * 2)
+end
+
+return {allowed, math.max(0, math.floor(limit - estimated)), window - elapsed}
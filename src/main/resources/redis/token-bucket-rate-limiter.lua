@@ -0,0 +1,39 @@
+-- Atomic token bucket rate limiter using the generic cell rate algorithm (GCRA).
+--
+-- Only the theoretical arrival time (TAT) of the next request is stored, in microseconds.
+--
+-- KEYS[1] - rate limit key
+-- ARGV[1] - allowed requests in the window
+-- ARGV[2] - window length in milliseconds
+-- ARGV[3] - burst capacity
+--
+-- Returns {allowed (1|0), remaining burst capacity, milliseconds until the bucket is full (or retry is possible)}
+
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local burst = tonumber(ARGV[3])
+
+if limit <= 0 then
+    return {0, 0, window}
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+local interval = window * 1000 / limit
+local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+
+if tat < now then
+    tat = now
+end
+
+local newTat = tat + interval
+local allowAt = newTat - burst * interval
+
+if now < allowAt then
+    return {0, 0, math.ceil((allowAt - now) / 1000)}
+end
+
+local resetAfter = math.ceil((newTat - now) / 1000)
+redis.call('SET', KEYS[1], string.format('%d', math.floor(newTat)), 'PX', resetAfter)
+
+return {1, math.floor((now - allowAt) / interval), resetAfter}
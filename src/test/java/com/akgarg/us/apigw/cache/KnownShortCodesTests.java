@@ -0,0 +1,90 @@
+package com.akgarg.us.apigw.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+
+class KnownShortCodesTests {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testFalsePositiveRateStaysNearConfiguredRate() {
+        final var codes = new KnownShortCodes(environment(100_000, null), new SimpleMeterRegistry());
+        codes.replace(IntStream.range(0, 100_000).mapToObj(i -> "code" + i).toList());
+
+        for (int i = 0; i < 100_000; i++) {
+            Assertions.assertTrue(codes.mightExist("code" + i));
+        }
+
+        final var falsePositives = IntStream.range(0, 100_000).filter(i -> codes.mightExist("unknown" + i)).count();
+
+        Assertions.assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        Assertions.assertTrue(codes.expectedFalsePositiveRate() < 0.02);
+        Assertions.assertEquals(100_000, codes.size());
+        // ~9.6 bits per code for a 1% false-positive rate
+        Assertions.assertTrue(codes.memoryBytes() < 125_000);
+    }
+
+    @Test
+    void testSnapshotFileIsLoadedAndAppendedLinesAreAdded() throws IOException {
+        final var snapshotFile = tempDir.resolve("codes.txt");
+        Files.writeString(snapshotFile, "# known codes\nabc123\ndef456\n");
+
+        final var codes = new KnownShortCodes(environment(1_000, snapshotFile), new SimpleMeterRegistry());
+        Assertions.assertTrue(codes.mightExist("xyz789"), "every code passes until a set is loaded");
+
+        Assertions.assertTrue(codes.refreshSnapshot());
+        Assertions.assertTrue(codes.mightExist("abc123"));
+        Assertions.assertTrue(codes.mightExist("def456"));
+        Assertions.assertFalse(codes.mightExist("xyz789"));
+        Assertions.assertEquals(2, codes.size());
+
+        // the last line is still being written
+        Files.writeString(snapshotFile, "xyz789\nnew", StandardOpenOption.APPEND);
+        Assertions.assertTrue(codes.refreshSnapshot());
+        Assertions.assertTrue(codes.mightExist("xyz789"));
+        Assertions.assertEquals(3, codes.size());
+
+        Files.writeString(snapshotFile, "001\n", StandardOpenOption.APPEND);
+        Assertions.assertTrue(codes.refreshSnapshot());
+        Assertions.assertTrue(codes.mightExist("new001"));
+        Assertions.assertEquals(4, codes.size());
+
+        Assertions.assertTrue(codes.add(List.of("added1")));
+        Assertions.assertTrue(codes.mightExist("added1"));
+    }
+
+    @Test
+    void testDisabledFilterAcceptsEveryCode() {
+        final var codes = new KnownShortCodes(new MockEnvironment(), new SimpleMeterRegistry());
+        codes.replace(List.of("abc123"));
+
+        Assertions.assertFalse(codes.isEnabled());
+        Assertions.assertTrue(codes.mightExist("xyz789"));
+    }
+
+    private static MockEnvironment environment(final long expectedCodes, final Path snapshotFile) {
+        final var environment = new MockEnvironment()
+                .withProperty("known-codes.enabled", "true")
+                .withProperty("known-codes.expected-codes", String.valueOf(expectedCodes))
+                .withProperty("known-codes.false-positive-rate", "0.01");
+
+        if (snapshotFile != null) {
+            environment.setProperty("known-codes.snapshot-file", snapshotFile.toString());
+        }
+
+        return environment;
+    }
+
+}
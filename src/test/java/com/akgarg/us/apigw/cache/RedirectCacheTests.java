@@ -0,0 +1,65 @@
+package com.akgarg.us.apigw.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.net.URI;
+
+class RedirectCacheTests {
+
+    private final RedirectCache redirectCache = new RedirectCache(
+            new MockEnvironment()
+                    .withProperty("redirect-cache.default-ttl-seconds", "30")
+                    .withProperty("redirect-cache.max-ttl-seconds", "3600"),
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void testTtlIsDerivedFromCacheControl() {
+        Assertions.assertEquals(300, redirectCache.getTtlSeconds(HttpStatus.FOUND, "public, max-age=300"));
+        Assertions.assertEquals(60, redirectCache.getTtlSeconds(HttpStatus.FOUND, "max-age=300, s-maxage=60"));
+        Assertions.assertEquals(0, redirectCache.getTtlSeconds(HttpStatus.FOUND, "max-age=0"));
+        Assertions.assertEquals(0, redirectCache.getTtlSeconds(HttpStatus.FOUND, "private, max-age=300"));
+        Assertions.assertEquals(0, redirectCache.getTtlSeconds(HttpStatus.FOUND, "no-store"));
+        Assertions.assertEquals(0, redirectCache.getTtlSeconds(HttpStatus.FOUND, "No-Cache"));
+    }
+
+    @Test
+    void testOnlyPermanentRedirectsGetHeuristicTtl() {
+        Assertions.assertEquals(30, redirectCache.getTtlSeconds(HttpStatus.MOVED_PERMANENTLY, null));
+        Assertions.assertEquals(30, redirectCache.getTtlSeconds(HttpStatus.PERMANENT_REDIRECT, "public"));
+        Assertions.assertEquals(0, redirectCache.getTtlSeconds(HttpStatus.FOUND, null));
+        Assertions.assertEquals(0, redirectCache.getTtlSeconds(HttpStatus.TEMPORARY_REDIRECT, "public"));
+    }
+
+    @Test
+    void testOnlyCacheableRedirectsAreStored() {
+        final var redirect = new HttpHeaders();
+        redirect.setLocation(URI.create("https://example.com"));
+        redirect.setCacheControl("max-age=120");
+        redirect.set("X-Internal", "value");
+
+        Assertions.assertTrue(redirectCache.put("/abc", HttpStatus.FOUND, redirect));
+        Assertions.assertFalse(redirectCache.put("/ok", HttpStatus.OK, redirect));
+        Assertions.assertFalse(redirectCache.put("/missing", HttpStatus.NOT_FOUND, redirect));
+
+        final var withCookie = new HttpHeaders();
+        withCookie.addAll(redirect);
+        withCookie.add(HttpHeaders.SET_COOKIE, "session=1");
+        Assertions.assertFalse(redirectCache.put("/cookie", HttpStatus.FOUND, withCookie));
+
+        final var cached = redirectCache.get("/abc");
+        Assertions.assertNotNull(cached);
+        Assertions.assertEquals(HttpStatus.FOUND, cached.status());
+        Assertions.assertEquals("https://example.com", cached.headers().getFirst(HttpHeaders.LOCATION));
+        Assertions.assertNull(cached.headers().getFirst("X-Internal"));
+
+        redirectCache.invalidate("/abc");
+        Assertions.assertNull(redirectCache.get("/abc"));
+    }
+
+}
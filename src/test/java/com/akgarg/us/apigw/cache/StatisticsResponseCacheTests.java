@@ -0,0 +1,74 @@
+package com.akgarg.us.apigw.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+
+class StatisticsResponseCacheTests {
+
+    private final StatisticsResponseCache cache = new StatisticsResponseCache(
+            new MockEnvironment()
+                    .withProperty("statistics-cache.enabled", "true")
+                    .withProperty("statistics-cache.fresh-seconds", "0")
+                    .withProperty("statistics-cache.per-user-max-bytes", "4096"),
+            new SimpleMeterRegistry()
+    );
+
+    private final HttpHeaders jsonHeaders = jsonHeaders();
+
+    @Test
+    void testResponsesBeyondUserBudgetAreNotStored() {
+        Assertions.assertTrue(cache.put("user-1\n/a", "user-1", HttpStatus.OK, jsonHeaders, new byte[2_000]));
+        Assertions.assertFalse(cache.put("user-1\n/b", "user-1", HttpStatus.OK, jsonHeaders, new byte[2_000]));
+        Assertions.assertTrue(cache.put("user-2\n/b", "user-2", HttpStatus.OK, jsonHeaders, new byte[2_000]));
+
+        Assertions.assertNotNull(cache.get("user-1\n/a"));
+        Assertions.assertNull(cache.get("user-1\n/b"));
+        Assertions.assertTrue(cache.getUserBytes("user-1") > 2_000);
+    }
+
+    @Test
+    void testReplacedEntriesReleaseTheirBudget() {
+        Assertions.assertTrue(cache.put("user-1\n/a", "user-1", HttpStatus.OK, jsonHeaders, new byte[3_000]));
+        final var usedBytes = cache.getUserBytes("user-1");
+
+        Assertions.assertTrue(cache.put("user-1\n/a", "user-1", HttpStatus.OK, jsonHeaders, new byte[3_000]));
+        Assertions.assertEquals(usedBytes, cache.getUserBytes("user-1"));
+    }
+
+    @Test
+    void testOnlyCacheableResponsesAreStored() {
+        Assertions.assertFalse(cache.put("user-1\n/a", "user-1", HttpStatus.INTERNAL_SERVER_ERROR, jsonHeaders, new byte[10]));
+
+        final var noStore = new HttpHeaders();
+        noStore.addAll(jsonHeaders);
+        noStore.setCacheControl("no-store");
+        Assertions.assertFalse(cache.put("user-1\n/a", "user-1", HttpStatus.OK, noStore, new byte[10]));
+        Assertions.assertEquals(0, cache.getUserBytes("user-1"));
+    }
+
+    @Test
+    void testEntriesBecomeStaleAndRevalidateOnce() {
+        Assertions.assertTrue(cache.put("user-1\n/a", "user-1", HttpStatus.OK, jsonHeaders, new byte[10]));
+        final var cached = cache.get("user-1\n/a");
+
+        Assertions.assertEquals(MediaType.APPLICATION_JSON, cached.headers().getContentType());
+        Assertions.assertTrue(cache.isStale(cached));
+        Assertions.assertTrue(cache.startRevalidation("user-1\n/a"));
+        Assertions.assertFalse(cache.startRevalidation("user-1\n/a"));
+
+        cache.finishRevalidation("user-1\n/a");
+        Assertions.assertTrue(cache.startRevalidation("user-1\n/a"));
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        final var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return headers;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.akgarg.us.apigw.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+
+class SubscriptionPacksCacheTests {
+
+    private static final String PACKS = "/api/v1/subscriptions/packs";
+    private static final byte[] BODY = "{\"packs\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private final CacheInvalidationChannel channel = new LocalCacheInvalidationChannel();
+
+    @Test
+    void testInvalidationIsAppliedOnEveryNode() {
+        final var node1 = newCache();
+        final var node2 = newCache();
+
+        Assertions.assertTrue(node1.put(PACKS, node1.generation(), HttpStatus.OK, new HttpHeaders(), BODY));
+        Assertions.assertTrue(node2.put(PACKS + "/pack-1", node2.generation(), HttpStatus.OK, new HttpHeaders(), BODY));
+        Assertions.assertTrue(node2.put("/api/v1/other", node2.generation(), HttpStatus.OK, new HttpHeaders(), BODY));
+
+        node1.invalidate(PACKS);
+
+        Assertions.assertNull(node1.get(PACKS));
+        Assertions.assertNull(node2.get(PACKS + "/pack-1"));
+        Assertions.assertNotNull(node2.get("/api/v1/other"));
+    }
+
+    @Test
+    void testResponseProxiedBeforeInvalidationIsNotStored() {
+        final var cache = newCache();
+        final var generation = cache.generation();
+
+        cache.invalidate(PACKS);
+
+        Assertions.assertFalse(cache.put(PACKS, generation, HttpStatus.OK, new HttpHeaders(), BODY));
+        Assertions.assertNull(cache.get(PACKS));
+        Assertions.assertTrue(cache.put(PACKS, cache.generation(), HttpStatus.OK, new HttpHeaders(), BODY));
+    }
+
+    @Test
+    void testOnlySuccessfulResponsesAreStored() {
+        final var cache = newCache();
+        final var noStore = new HttpHeaders();
+        noStore.setCacheControl("no-store");
+
+        Assertions.assertFalse(cache.put(PACKS, cache.generation(), HttpStatus.NOT_FOUND, new HttpHeaders(), BODY));
+        Assertions.assertFalse(cache.put(PACKS, cache.generation(), HttpStatus.OK, noStore, BODY));
+    }
+
+    private SubscriptionPacksCache newCache() {
+        return new SubscriptionPacksCache(new MockEnvironment(), new SimpleMeterRegistry(), channel);
+    }
+
+}
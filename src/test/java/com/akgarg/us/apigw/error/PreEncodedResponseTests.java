@@ -0,0 +1,49 @@
+package com.akgarg.us.apigw.error;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+class PreEncodedResponseTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testStaticBodyIsWrittenUnchanged() {
+        final var body = "{\"message\": \"Rate Limit Exceeded\", \"code\": 429}";
+        final var response = PreEncodedResponse.of(HttpStatus.TOO_MANY_REQUESTS, body);
+
+        for (int i = 0; i < 2; i++) {
+            final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/abc"));
+            response.write(exchange).block();
+
+            Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+            Assertions.assertEquals(MediaType.APPLICATION_JSON, exchange.getResponse().getHeaders().getContentType());
+            Assertions.assertEquals(body.length(), exchange.getResponse().getHeaders().getContentLength());
+            Assertions.assertEquals(body, exchange.getResponse().getBodyAsString().block());
+        }
+    }
+
+    @Test
+    void testSplicedRequestIdMatchesSerializedApiErrorResponse() throws Exception {
+        final var response = PreEncodedResponse.apiError(objectMapper, HttpStatus.UNAUTHORIZED, "Authentication is required");
+
+        for (final var requestId : new String[]{"01JABCDEF", "quote\"back\\slash\nnewline\u0001", null}) {
+            final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/abc"));
+            response.write(exchange, requestId).block();
+
+            final var expected = objectMapper.readTree(objectMapper.writeValueAsString(
+                    new ApiErrorResponse(HttpStatus.UNAUTHORIZED.value(), requestId, "Authentication is required")
+            ));
+            final var actual = objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+
+            Assertions.assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+            Assertions.assertEquals(expected, actual);
+        }
+    }
+
+}
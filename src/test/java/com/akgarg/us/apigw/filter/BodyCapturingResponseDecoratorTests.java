@@ -0,0 +1,64 @@
+package com.akgarg.us.apigw.filter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+class BodyCapturingResponseDecoratorTests {
+
+    private static final int MAX_BODY_BYTES = 16;
+
+    private final MockServerHttpResponse response = new MockServerHttpResponse();
+    private final AtomicReference<String> captured = new AtomicReference<>();
+    private final BodyCapturingResponseDecorator decorator = new BodyCapturingResponseDecorator(
+            response,
+            MAX_BODY_BYTES,
+            (status, headers, body) -> captured.set(new String(body, StandardCharsets.UTF_8))
+    );
+
+    @Test
+    void testChunkedBodyWithinLimitIsCaptured() {
+        write(HttpStatus.OK, "0123", "4567", "89");
+
+        Assertions.assertEquals("0123456789", captured.get());
+        Assertions.assertEquals("0123456789", response.getBodyAsString().block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void testChunkedBodyAboveLimitIsStreamedWithoutCapture() {
+        write(HttpStatus.OK, "0123456789", "0123456789", "0123456789");
+
+        Assertions.assertNull(captured.get());
+        Assertions.assertEquals("012345678901234567890123456789", response.getBodyAsString().block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void testAnnouncedLengthAboveLimitIsNotCaptured() {
+        decorator.getHeaders().setContentLength(MAX_BODY_BYTES + 1);
+        write(HttpStatus.OK, "01234567890123456");
+
+        Assertions.assertNull(captured.get());
+    }
+
+    @Test
+    void testErrorResponseIsNotCaptured() {
+        write(HttpStatus.INTERNAL_SERVER_ERROR, "error");
+
+        Assertions.assertNull(captured.get());
+        Assertions.assertEquals("error", response.getBodyAsString().block(Duration.ofSeconds(1)));
+    }
+
+    private void write(final HttpStatus status, final String... chunks) {
+        decorator.setStatusCode(status);
+        decorator.writeWith(Flux.fromArray(chunks)
+                        .map(chunk -> response.bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))))
+                .block(Duration.ofSeconds(1));
+    }
+
+}
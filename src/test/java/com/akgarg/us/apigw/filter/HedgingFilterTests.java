@@ -0,0 +1,265 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.loadbalancer.HedgePolicy;
+import com.akgarg.us.apigw.loadbalancer.LoadBalancerStatsRegistry;
+import com.akgarg.us.apigw.loadbalancer.OutlierDetector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Runs the filter against a stub proxied request and a stub hedge. The hedge delay is 50 ms, so responses within a
+ * few milliseconds are never hedged and responses after two seconds always are.
+ */
+class HedgingFilterTests {
+
+    private static final String SERVICE_ID = "urlshortener-service";
+    private static final Duration FAST = Duration.ofMillis(5);
+    private static final Duration SLOW = Duration.ofSeconds(2);
+
+    private final ServiceInstance primary = new DefaultServiceInstance("instance-1", SERVICE_ID, "10.0.0.1", 8080, false);
+    private final ServiceInstance secondary = new DefaultServiceInstance("instance-2", SERVICE_ID, "10.0.0.2", 8080, false);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger hedgesSent = new AtomicInteger();
+    private final AtomicReference<String> hedgeHost = new AtomicReference<>();
+    private final AtomicReference<HttpHeaders> hedgeHeaders = new AtomicReference<>();
+    private final AtomicBoolean hedgeCancelled = new AtomicBoolean();
+    private final AtomicBoolean proxiedCancelled = new AtomicBoolean();
+    private LoadBalancerStatsRegistry statsRegistry;
+    private OutlierDetector outlierDetector;
+
+    @Test
+    void testFastResponseIsNotHedged() {
+        final var exchange = run(filter(hedge(HttpStatus.OK, SLOW), "10"), proxied(FAST));
+
+        Assertions.assertEquals("proxied", body(exchange));
+        Assertions.assertEquals(0, hedgesSent.get());
+    }
+
+    @Test
+    void testHedgeWinsAndProxiedRequestIsCancelled() {
+        final var exchange = run(filter(hedge(HttpStatus.OK, FAST), "10"), proxied(SLOW));
+
+        Assertions.assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        Assertions.assertEquals("hedge", body(exchange));
+        Assertions.assertEquals("10.0.0.2", hedgeHost.get());
+        Assertions.assertTrue(proxiedCancelled.get());
+        Assertions.assertEquals(1, hedgeCount("won"));
+    }
+
+    @Test
+    void testHedgeCarriesFilteredHeaders() {
+        final var exchange = exchange();
+        exchange.getAttributes().put(RequestIdFilter.REQUEST_ID_ATTRIBUTE_NAME, "request-1");
+        filter(hedge(HttpStatus.OK, FAST), "10").filter(exchange, proxied(SLOW)).block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals("hedge", body(exchange));
+        Assertions.assertEquals("127.0.0.1", hedgeHeaders.get().getFirst("X-Forwarded-For"));
+        Assertions.assertEquals("request-1", hedgeHeaders.get().getFirst(RequestIdFilter.REQUEST_ID_HEADER_NAME));
+        Assertions.assertEquals("text/html", hedgeHeaders.get().getFirst(HttpHeaders.ACCEPT));
+        Assertions.assertNull(hedgeHeaders.get().getFirst(HttpHeaders.HOST));
+    }
+
+    @Test
+    void testCancelledPrimaryIsSampledAsLowerBound() {
+        final var hedgingFilter = filter(hedge(HttpStatus.OK, FAST), "10");
+        final var statsFilter = new LoadBalancerStatsFilter(statsRegistry, outlierDetector);
+        final var exchange = run(hedgingFilter, proxiedExchange -> statsFilter.filter(proxiedExchange, proxied(SLOW)));
+
+        Assertions.assertEquals("hedge", body(exchange));
+        final var primaryStats = statsRegistry.getStats(SERVICE_ID, primary);
+        Assertions.assertEquals(0, primaryStats.getInFlight());
+        // the primary had been waiting for at least the hedge delay of 50 ms
+        Assertions.assertTrue(primaryStats.getEwmaSeconds() >= 0.05, "ewma: " + primaryStats.getEwmaSeconds());
+    }
+
+    @Test
+    void testProxiedWinsAndHedgeIsCancelled() {
+        final var exchange = run(filter(hedge(HttpStatus.OK, SLOW), "10"), proxied(Duration.ofMillis(200)));
+
+        Assertions.assertEquals("proxied", body(exchange));
+        Assertions.assertEquals("proxied", exchange.getResponse().getHeaders().getFirst("X-Source"));
+        Assertions.assertEquals(1, hedgesSent.get());
+        Assertions.assertTrue(hedgeCancelled.get());
+        Assertions.assertEquals(1, hedgeCount("lost"));
+    }
+
+    @Test
+    void testServerErrorHedgeNeverWins() {
+        final var exchange = run(filter(hedge(HttpStatus.SERVICE_UNAVAILABLE, FAST), "10"), proxied(Duration.ofMillis(200)));
+
+        Assertions.assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        Assertions.assertEquals("proxied", body(exchange));
+        Assertions.assertEquals(1, hedgeCount("failed"));
+    }
+
+    @Test
+    void testFailedHedgeNeverWins() {
+        final var failingHedge = WebClient.builder().exchangeFunction(request -> {
+            hedgesSent.incrementAndGet();
+            return Mono.error(new IllegalStateException("connection refused"));
+        });
+        final var exchange = run(filter(failingHedge, "10"), proxied(Duration.ofMillis(200)));
+
+        Assertions.assertEquals("proxied", body(exchange));
+        Assertions.assertEquals(1, hedgesSent.get());
+        Assertions.assertEquals(1, hedgeCount("failed"));
+    }
+
+    @Test
+    void testProxiedErrorIsPropagated() {
+        final GatewayFilterChain failing = exchange -> Mono.error(new IllegalStateException("upstream failed"));
+        final var exchange = exchange();
+        final var result = filter(hedge(HttpStatus.OK, SLOW), "10").filter(exchange, failing);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> result.block(Duration.ofSeconds(5)));
+        Assertions.assertEquals(0, hedgesSent.get());
+    }
+
+    @Test
+    void testNoHedgeOnceProxiedResponseIsClaimed() {
+        // the proxied response starts within the hedge delay but its body takes longer
+        final GatewayFilterChain slowBody = exchange -> Mono.delay(FAST).then(Mono.defer(() -> {
+            final var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            return response.writeWith(Flux.just("prox", "ied")
+                    .delayElements(Duration.ofMillis(100))
+                    .map(chunk -> response.bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+        }));
+        final var exchange = run(filter(hedge(HttpStatus.OK, FAST), "10"), slowBody);
+
+        Assertions.assertEquals("proxied", body(exchange));
+        Assertions.assertEquals(0, hedgesSent.get());
+    }
+
+    @Test
+    void testNoHedgeWithoutBudget() {
+        final var exchange = run(filter(hedge(HttpStatus.OK, FAST), "0"), proxied(Duration.ofMillis(200)));
+
+        Assertions.assertEquals("proxied", body(exchange));
+        Assertions.assertEquals(0, hedgesSent.get());
+        Assertions.assertEquals(1, meterRegistry.get("urlshortener_api_gateway_hedged_requests_skipped_total")
+                .tag("reason", "budget_exhausted")
+                .counter()
+                .count());
+    }
+
+    private HedgingFilter filter(final WebClient.Builder hedgeWebClientBuilder, final String budgetBurst) {
+        final var environment = new MockEnvironment()
+                .withProperty("hedging.enabled", "true")
+                .withProperty("hedging.min-samples", "1")
+                .withProperty("hedging.min-delay-ms", "50")
+                .withProperty("hedging.budget-ratio", "0")
+                .withProperty("hedging.budget-burst", budgetBurst);
+        statsRegistry = new LoadBalancerStatsRegistry(environment, meterRegistry);
+        outlierDetector = new OutlierDetector(environment, meterRegistry);
+        final var hedgePolicy = new HedgePolicy(environment, meterRegistry, statsRegistry, outlierDetector);
+        hedgePolicy.recordLatency(Duration.ofMillis(1).toNanos());
+
+        return new HedgingFilter(
+                hedgePolicy,
+                statsRegistry,
+                outlierDetector,
+                serviceId -> Mono.just(List.of(primary, secondary)),
+                () -> List.of(forwardedFor(), new RequestIdHeadersFilter()),
+                hedgeWebClientBuilder,
+                meterRegistry
+        );
+    }
+
+    /**
+     * Stub instance answering the hedge with the given status after the given latency.
+     */
+    private WebClient.Builder hedge(final HttpStatus status, final Duration latency) {
+        return WebClient.builder().exchangeFunction(request -> {
+            hedgesSent.incrementAndGet();
+            hedgeHost.set(request.url().getHost());
+            hedgeHeaders.set(request.headers());
+            return Mono.delay(latency)
+                    .map(tick -> ClientResponse.create(status).body("hedge").build())
+                    .doOnCancel(() -> hedgeCancelled.set(true));
+        });
+    }
+
+    /**
+     * Stand-in for the gateway's {@code X-Forwarded-*} headers filter.
+     */
+    private static HttpHeadersFilter forwardedFor() {
+        return (input, exchange) -> {
+            final var filtered = new HttpHeaders();
+            filtered.addAll(input);
+            filtered.set("X-Forwarded-For", exchange.getRequest().getRemoteAddress().getAddress().getHostAddress());
+            return filtered;
+        };
+    }
+
+    /**
+     * Stub of the proxied request answering after the given latency.
+     */
+    private GatewayFilterChain proxied(final Duration latency) {
+        return exchange -> Mono.delay(latency)
+                .then(Mono.defer(() -> {
+                    final var response = exchange.getResponse();
+                    response.setStatusCode(HttpStatus.OK);
+                    response.getHeaders().set("X-Source", "proxied");
+                    return response.writeWith(Mono.just(response.bufferFactory().wrap("proxied".getBytes(StandardCharsets.UTF_8))));
+                }))
+                .doOnCancel(() -> proxiedCancelled.set(true));
+    }
+
+    private MockServerWebExchange exchange() {
+        final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/abc123")
+                .header(HttpHeaders.HOST, "gateway.example.com")
+                .header(HttpHeaders.ACCEPT, "text/html")
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 54321)));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async()
+                .id("urlshortener_service_public")
+                .uri("lb://" + SERVICE_ID)
+                .predicate(e -> true)
+                .build());
+        exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(primary));
+        return exchange;
+    }
+
+    private MockServerWebExchange run(final HedgingFilter filter, final GatewayFilterChain chain) {
+        final var exchange = exchange();
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    private static String body(final MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5));
+    }
+
+    private double hedgeCount(final String result) {
+        return meterRegistry.get("urlshortener_api_gateway_hedged_requests_total").tag("result", result).counter().count();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.cache.RedirectCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RedirectCacheFilterTests {
+
+    private static final URI LOCATION = URI.create("https://example.com/target");
+
+    private final RedirectCache redirectCache = new RedirectCache(new MockEnvironment(), new SimpleMeterRegistry());
+    private final RedirectCacheFilter filter = new RedirectCacheFilter(redirectCache);
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+
+    @Test
+    void testGetRedirectIsStoredAndServedFromCache() {
+        final var upstream = redirect(null);
+
+        run(MockServerHttpRequest.get("/abc123"), upstream);
+        final var cachedExchange = run(MockServerHttpRequest.get("/abc123"), upstream);
+
+        Assertions.assertEquals(1, upstreamHits.get());
+        Assertions.assertEquals(HttpStatus.FOUND, cachedExchange.getResponse().getStatusCode());
+        Assertions.assertEquals(LOCATION, cachedExchange.getResponse().getHeaders().getLocation());
+    }
+
+    @Test
+    void testOnlyGetRequestsAreStored() {
+        run(MockServerHttpRequest.post("/abc123"), redirect(null));
+        run(MockServerHttpRequest.head("/abc123"), redirect(null));
+
+        Assertions.assertNull(redirectCache.get("/abc123"));
+    }
+
+    @Test
+    void testRedirectSettingCookieIsNotStored() {
+        final var upstream = redirect("session=1");
+
+        run(MockServerHttpRequest.get("/abc123"), upstream);
+        run(MockServerHttpRequest.get("/abc123"), upstream);
+
+        Assertions.assertNull(redirectCache.get("/abc123"));
+        Assertions.assertEquals(2, upstreamHits.get());
+    }
+
+    /**
+     * Stub backend answering with a cacheable {@code 302}, optionally setting a cookie.
+     */
+    private GatewayFilterChain redirect(final String cookie) {
+        return exchange -> {
+            upstreamHits.incrementAndGet();
+            final var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.FOUND);
+            response.getHeaders().setLocation(LOCATION);
+            response.getHeaders().setCacheControl("public, max-age=60");
+
+            if (cookie != null) {
+                response.getHeaders().add(HttpHeaders.SET_COOKIE, cookie);
+            }
+
+            return response.setComplete();
+        };
+    }
+
+    private MockServerWebExchange run(final MockServerHttpRequest.BaseBuilder<?> request, final GatewayFilterChain upstream) {
+        final var exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, upstream).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.logging.AccessLogger;
+import com.akgarg.us.apigw.metrics.HeavyHittersTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class RequestMetricFilterTests {
+
+    private static final int DISTINCT_PATHS = 100_000;
+
+    private final Route publicRoute = Route.async()
+            .id("urlshortener_service_public")
+            .uri("http://localhost")
+            .predicate(exchange -> true)
+            .build();
+
+    @Test
+    void testMeterCountIsIndependentOfDistinctPathsAndClients() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var environment = new MockEnvironment();
+        final var filter = new RequestMetricFilter(meterRegistry,
+                new HeavyHittersTracker(environment),
+                new AccessLogger(environment, new SimpleMeterRegistry()),
+                environment);
+
+        for (int i = 0; i < DISTINCT_PATHS; i++) {
+            final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/code" + i)
+                    .header("X-Forwarded-For", "10.0." + (i >> 8 & 0xff) + "." + (i & 0xff)));
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, publicRoute);
+            final var status = i % 10 == 0 ? HttpStatus.NOT_FOUND : HttpStatus.FOUND;
+            final GatewayFilterChain chain = e -> {
+                e.getResponse().setStatusCode(status);
+                return Mono.empty();
+            };
+
+            filter.filter(exchange, chain).block();
+        }
+
+        Assertions.assertEquals(2, filter.cachedMeterCount());
+        Assertions.assertEquals(4, meterRegistry.getMeters().size());
+        Assertions.assertEquals(DISTINCT_PATHS, (long) meterRegistry.get(RequestMetricFilter.REQUESTS_COUNTER_NAME)
+                .counters()
+                .stream()
+                .mapToDouble(Counter::count)
+                .sum());
+    }
+
+    @Test
+    void testStatusClassAndUnknownMethodsAreCollapsed() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var environment = new MockEnvironment().withProperty("metrics.requests.status-class", "true");
+        final var filter = new RequestMetricFilter(meterRegistry,
+                new HeavyHittersTracker(environment),
+                new AccessLogger(environment, new SimpleMeterRegistry()),
+                environment);
+
+        for (final var status : new HttpStatus[]{HttpStatus.OK, HttpStatus.CREATED, HttpStatus.NO_CONTENT}) {
+            final var exchange = MockServerWebExchange.from(MockServerHttpRequest.method(HttpMethod.valueOf("PURGE"), "/abc"));
+            filter.filter(exchange, e -> {
+                e.getResponse().setStatusCode(status);
+                return Mono.empty();
+            }).block();
+        }
+
+        final var counter = meterRegistry.get(RequestMetricFilter.REQUESTS_COUNTER_NAME)
+                .tag("method", RequestMetricFilter.OTHER_METHOD)
+                .tag("route", RequestMetricFilter.UNMATCHED_ROUTE)
+                .tag("status", "2xx")
+                .counter();
+
+        Assertions.assertEquals(3, counter.count());
+        Assertions.assertEquals(1, filter.cachedMeterCount());
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.akgarg.us.apigw.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+class SingleFlightFilterTests {
+
+    private static final URI LOCATION = URI.create("https://example.com/target");
+    private static final String REDIRECT_BODY = "<a href=\"https://example.com/target\">Found</a>";
+
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+    private final Sinks.Empty<Void> upstreamRelease = Sinks.empty();
+
+    /**
+     * Stub backend answering every request with a bodyless redirect once {@link #upstreamRelease} completes, so
+     * all requests are in flight at the same time.
+     */
+    private final GatewayFilterChain upstream = exchange -> {
+        upstreamHits.incrementAndGet();
+        return upstreamRelease.asMono().then(Mono.defer(() -> {
+            final var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.FOUND);
+            response.getHeaders().setLocation(LOCATION);
+            response.getHeaders().setContentLength(0);
+            return response.setComplete();
+        }));
+    };
+
+    /**
+     * Stub backend answering with a redirect that carries an HTML body.
+     */
+    private final GatewayFilterChain upstreamWithBody = exchange -> {
+        upstreamHits.incrementAndGet();
+        return upstreamRelease.asMono().then(Mono.defer(() -> {
+            final var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.FOUND);
+            response.getHeaders().setLocation(LOCATION);
+            response.getHeaders().setContentLength(REDIRECT_BODY.length());
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(REDIRECT_BODY.getBytes(StandardCharsets.UTF_8))));
+        }));
+    };
+
+    @Test
+    void testConcurrentIdenticalRequestsShareOneUpstreamCall() {
+        final var exchanges = runConcurrently(filter(20_000), 10_000);
+
+        Assertions.assertEquals(1, upstreamHits.get());
+
+        for (final var exchange : exchanges) {
+            Assertions.assertEquals(HttpStatus.FOUND, exchange.getResponse().getStatusCode());
+            Assertions.assertEquals(LOCATION, exchange.getResponse().getHeaders().getLocation());
+        }
+    }
+
+    @Test
+    void testRequestsBeyondWaiterCapAreProxiedOnTheirOwn() {
+        final var exchanges = runConcurrently(filter(100), 1_000);
+
+        Assertions.assertEquals(1 + (1_000 - 1 - 100), upstreamHits.get());
+        exchanges.forEach(exchange -> Assertions.assertEquals(HttpStatus.FOUND, exchange.getResponse().getStatusCode()));
+    }
+
+    @Test
+    void testRedirectWithBodyIsNotShared() {
+        final var exchanges = runConcurrently(filter(1_000), 100, upstreamWithBody);
+
+        Assertions.assertEquals(100, upstreamHits.get());
+
+        for (final var exchange : exchanges) {
+            final var response = (MockServerHttpResponse) exchange.getResponse();
+            Assertions.assertEquals(HttpStatus.FOUND, response.getStatusCode());
+            Assertions.assertEquals(REDIRECT_BODY, response.getBodyAsString().block(Duration.ofSeconds(5)));
+        }
+    }
+
+    private SingleFlightFilter filter(final int maxWaiters) {
+        return new SingleFlightFilter(
+                new MockEnvironment()
+                        .withProperty("single-flight.max-waiters", String.valueOf(maxWaiters))
+                        .withProperty("single-flight.timeout-ms", "10000"),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    private List<ServerWebExchange> runConcurrently(final SingleFlightFilter filter, final int requests) {
+        return runConcurrently(filter, requests, upstream);
+    }
+
+    private List<ServerWebExchange> runConcurrently(final SingleFlightFilter filter,
+                                                    final int requests,
+                                                    final GatewayFilterChain upstream) {
+        final List<ServerWebExchange> exchanges = IntStream.range(0, requests)
+                .mapToObj(i -> (ServerWebExchange) MockServerWebExchange.from(MockServerHttpRequest.get("/viral")))
+                .toList();
+
+        final var completion = Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, upstream), requests)
+                .then()
+                .toFuture();
+
+        upstreamRelease.tryEmitEmpty();
+        Mono.fromFuture(completion).block(Duration.ofSeconds(30));
+
+        return exchanges;
+    }
+
+}
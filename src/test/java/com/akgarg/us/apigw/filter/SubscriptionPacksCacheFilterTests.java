@@ -0,0 +1,77 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.cache.LocalCacheInvalidationChannel;
+import com.akgarg.us.apigw.cache.SubscriptionPacksCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SubscriptionPacksCacheFilterTests {
+
+    private static final String PACKS = "/api/v1/subscriptions/packs";
+
+    private final SubscriptionPacksCache subscriptionPacksCache = new SubscriptionPacksCache(
+            new MockEnvironment(), new SimpleMeterRegistry(), new LocalCacheInvalidationChannel()
+    );
+    private final SubscriptionPacksCacheFilter filter = new SubscriptionPacksCacheFilter(subscriptionPacksCache);
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+
+    @Test
+    void testEncodedResponseIsOnlyServedForSameAcceptEncoding() {
+        run(MockServerHttpRequest.get(PACKS).header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        final var gzipExchange = run(MockServerHttpRequest.get(PACKS).header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+
+        Assertions.assertEquals(1, upstreamHits.get());
+        Assertions.assertEquals("gzip", gzipExchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        final var identityExchange = run(MockServerHttpRequest.get(PACKS));
+
+        Assertions.assertEquals(2, upstreamHits.get());
+        Assertions.assertNull(identityExchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testCacheKeyStartsWithPathAndQuery() {
+        final var request = MockServerHttpRequest.get(PACKS + "?page=1").header(HttpHeaders.ACCEPT_ENCODING, "br").build();
+
+        Assertions.assertEquals(PACKS + "?page=1\nbr", SubscriptionPacksCacheFilter.cacheKey(request));
+        Assertions.assertEquals(PACKS, SubscriptionPacksCacheFilter.cacheKey(MockServerHttpRequest.get(PACKS).build()));
+    }
+
+    /**
+     * Stub backend compressing the catalog only if the client accepts gzip.
+     */
+    private GatewayFilterChain upstream() {
+        return exchange -> {
+            upstreamHits.incrementAndGet();
+            final var response = exchange.getResponse();
+            final var gzip = "gzip".equals(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+            response.setStatusCode(HttpStatus.OK);
+
+            if (gzip) {
+                response.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+
+            final var body = gzip ? "compressed" : "{\"packs\":[]}";
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    private MockServerWebExchange run(final MockServerHttpRequest.BaseBuilder<?> request) {
+        final var exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, upstream()).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.akgarg.us.apigw.filter;
+
+import com.akgarg.us.apigw.cache.KnownShortCodes;
+import com.akgarg.us.apigw.cache.NotFoundCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the filter with a known short codes set containing only {@link #KNOWN_CODE}.
+ */
+class UnknownShortCodeFilterTests {
+
+    private static final String KNOWN_CODE = "abc123";
+
+    private final NotFoundCache notFoundCache = new NotFoundCache(new MockEnvironment(), new SimpleMeterRegistry());
+    private final KnownShortCodes knownShortCodes = new KnownShortCodes(
+            new MockEnvironment().withProperty("known-codes.enabled", "true").withProperty("known-codes.expected-codes", "1000"),
+            new SimpleMeterRegistry()
+    );
+    private final UnknownShortCodeFilter filter = new UnknownShortCodeFilter(
+            notFoundCache, knownShortCodes, new ObjectMapper(), new SimpleMeterRegistry()
+    );
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+
+    UnknownShortCodeFilterTests() {
+        knownShortCodes.replace(List.of(KNOWN_CODE));
+    }
+
+    @Test
+    void testKnownCodeIsProxied() {
+        final var exchange = run(MockServerHttpRequest.get("/" + KNOWN_CODE), upstream(HttpStatus.FOUND));
+
+        Assertions.assertEquals(1, upstreamHits.get());
+        Assertions.assertEquals(HttpStatus.FOUND, exchange.getResponse().getStatusCode());
+        Assertions.assertFalse(notFoundCache.contains("/" + KNOWN_CODE));
+    }
+
+    @Test
+    void testUnknownCodeIsAnsweredWithoutCallingUpstream() {
+        final var exchange = run(MockServerHttpRequest.get("/xyz789"), upstream(HttpStatus.FOUND));
+
+        Assertions.assertEquals(0, upstreamHits.get());
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testNotFoundResponseIsRecordedInNegativeCache() {
+        // the known codes filter passes the code, but it was deleted upstream
+        final var upstream = upstream(HttpStatus.NOT_FOUND);
+
+        run(MockServerHttpRequest.get("/" + KNOWN_CODE), upstream);
+        Assertions.assertTrue(notFoundCache.contains("/" + KNOWN_CODE));
+
+        final var exchange = run(MockServerHttpRequest.get("/" + KNOWN_CODE), upstream);
+        Assertions.assertEquals(1, upstreamHits.get());
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testOnlyGetRequestsAreHandled() {
+        final var upstream = upstream(HttpStatus.NOT_FOUND);
+
+        run(MockServerHttpRequest.post("/xyz789"), upstream);
+        run(MockServerHttpRequest.head("/xyz789"), upstream);
+
+        Assertions.assertEquals(2, upstreamHits.get());
+        Assertions.assertFalse(notFoundCache.contains("/xyz789"));
+    }
+
+    @Test
+    void testOnlySingleSegmentPathsAreCheckedAgainstKnownCodes() {
+        run(MockServerHttpRequest.get("/xyz789/details"), upstream(HttpStatus.OK));
+        run(MockServerHttpRequest.get("/"), upstream(HttpStatus.OK));
+
+        Assertions.assertEquals(2, upstreamHits.get());
+        Assertions.assertEquals("xyz789", UnknownShortCodeFilter.shortCode("/xyz789"));
+        Assertions.assertNull(UnknownShortCodeFilter.shortCode("/xyz789/details"));
+        Assertions.assertNull(UnknownShortCodeFilter.shortCode("/"));
+    }
+
+    /**
+     * Stub backend answering every request with the given status.
+     */
+    private GatewayFilterChain upstream(final HttpStatus status) {
+        return exchange -> {
+            upstreamHits.incrementAndGet();
+            exchange.getResponse().setStatusCode(status);
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    private MockServerWebExchange run(final MockServerHttpRequest.BaseBuilder<?> request, final GatewayFilterChain upstream) {
+        final var exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, upstream).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+}
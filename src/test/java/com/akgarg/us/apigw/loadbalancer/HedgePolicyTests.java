@@ -0,0 +1,143 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+class HedgePolicyTests {
+
+    private static final String SERVICE_ID = "urlshortener-service";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment().withProperty("hedging.enabled", "true");
+    private final LoadBalancerStatsRegistry statsRegistry = new LoadBalancerStatsRegistry(environment, meterRegistry);
+    private final OutlierDetector outlierDetector = new OutlierDetector(environment, meterRegistry);
+
+    @Test
+    void testHedgeDelayIsLatencyPercentile() {
+        final var hedgePolicy = new HedgePolicy(environment, meterRegistry, statsRegistry, outlierDetector);
+        final var now = System.nanoTime();
+
+        for (int i = 1; i <= 99; i++) {
+            hedgePolicy.recordLatency(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        Assertions.assertEquals(-1, hedgePolicy.getHedgeDelayNanos(now));
+
+        hedgePolicy.recordLatency(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // not recomputed before the refresh interval
+        Assertions.assertEquals(-1, hedgePolicy.getHedgeDelayNanos(now + TimeUnit.MILLISECONDS.toNanos(500)));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(95), hedgePolicy.getHedgeDelayNanos(now + TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    void testHedgeBudgetLimitsExtraLoad() {
+        final var hedgePolicy = new HedgePolicy(environment, meterRegistry, statsRegistry, outlierDetector);
+        var hedges = 0;
+
+        for (int i = 0; i < 10_000; i++) {
+            hedgePolicy.recordRequest();
+
+            if (hedgePolicy.tryAcquireHedge()) {
+                hedges++;
+            }
+        }
+
+        // 5% of the requests plus the initial burst
+        Assertions.assertEquals(500 + 10, hedges, 1);
+    }
+
+    @Test
+    void testHedgeInstanceIsAnotherHealthyInstance() {
+        final var hedgePolicy = new HedgePolicy(environment, meterRegistry, statsRegistry, outlierDetector);
+        final ServiceInstance primary = new DefaultServiceInstance("instance-1", SERVICE_ID, "10.0.0.1", 8080, false);
+        final ServiceInstance ejected = new DefaultServiceInstance("instance-2", SERVICE_ID, "10.0.0.2", 8080, false);
+        final ServiceInstance healthy = new DefaultServiceInstance("instance-3", SERVICE_ID, "10.0.0.3", 8080, false);
+
+        for (int i = 0; i < 5; i++) {
+            outlierDetector.record(SERVICE_ID, ejected, false);
+        }
+
+        Assertions.assertEquals(healthy, hedgePolicy.chooseHedgeInstance(SERVICE_ID, List.of(primary, ejected, healthy), primary));
+        Assertions.assertNull(hedgePolicy.chooseHedgeInstance(SERVICE_ID, List.of(primary, ejected), primary));
+    }
+
+    /**
+     * Replays a latency distribution with a slow tail (slow instance, GC pauses) with and without hedging.
+     */
+    @Test
+    void testHedgingCutsTailLatency() {
+        final var hedgePolicy = new HedgePolicy(environment, meterRegistry, statsRegistry, outlierDetector);
+        final var random = new Random(42);
+        final var requests = 100_000;
+        final var unhedged = new long[requests];
+        final var hedged = new long[requests];
+        var now = System.nanoTime();
+        var hedges = 0;
+
+        for (int i = 0; i < requests; i++) {
+            now += TimeUnit.MILLISECONDS.toNanos(1);
+            hedgePolicy.recordRequest();
+
+            final var latency = sampleLatency(random);
+            final var hedgeDelay = hedgePolicy.getHedgeDelayNanos(now);
+            var observed = latency;
+
+            if (hedgeDelay >= 0 && latency > hedgeDelay && hedgePolicy.tryAcquireHedge()) {
+                hedges++;
+                observed = Math.min(latency, hedgeDelay + sampleLatency(random));
+            }
+
+            hedgePolicy.recordLatency(observed);
+            unhedged[i] = latency;
+            hedged[i] = observed;
+        }
+
+        final var unhedgedP99 = percentile(unhedged, 0.99);
+        final var unhedgedP999 = percentile(unhedged, 0.999);
+        final var hedgedP99 = percentile(hedged, 0.99);
+        final var hedgedP999 = percentile(hedged, 0.999);
+        final var summary = "p99 %d -> %d ms, p999 %d -> %d ms, %d hedges".formatted(
+                TimeUnit.NANOSECONDS.toMillis(unhedgedP99), TimeUnit.NANOSECONDS.toMillis(hedgedP99),
+                TimeUnit.NANOSECONDS.toMillis(unhedgedP999), TimeUnit.NANOSECONDS.toMillis(hedgedP999), hedges
+        );
+
+        Assertions.assertTrue(hedgedP99 * 2 < unhedgedP99, summary);
+        Assertions.assertTrue(hedgedP999 * 2 < unhedgedP999, summary);
+        Assertions.assertTrue(hedges <= requests * 0.05 + 10, summary);
+    }
+
+    /**
+     * 97% of the requests take 8-12 ms, 2.5% hit a slow instance (100-300 ms) and 0.5% a GC pause (1 s).
+     */
+    private static long sampleLatency(final Random random) {
+        final var p = random.nextDouble();
+        final long millis;
+
+        if (p < 0.005) {
+            millis = 1000;
+        } else if (p < 0.03) {
+            millis = 100 + random.nextInt(200);
+        } else {
+            millis = 8 + random.nextInt(5);
+        }
+
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static long percentile(final long[] latencies, final double percentile) {
+        final var sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+}
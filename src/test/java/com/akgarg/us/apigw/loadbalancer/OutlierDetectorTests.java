@@ -0,0 +1,120 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class OutlierDetectorTests {
+
+    private static final String SERVICE_ID = "urlshortener-service";
+
+    private final ServiceInstance instance = new DefaultServiceInstance("instance-1", SERVICE_ID, "10.0.0.1", 8080, false);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutlierDetector outlierDetector = new OutlierDetector(new MockEnvironment(), meterRegistry);
+
+    @Test
+    void testConsecutiveFailuresEjectInstance() {
+        final var now = System.nanoTime();
+
+        for (int i = 0; i < 4; i++) {
+            outlierDetector.record(SERVICE_ID, instance, false, now);
+        }
+
+        Assertions.assertEquals(OutlierDetector.State.HEALTHY, outlierDetector.getState(SERVICE_ID, instance, now));
+        Assertions.assertTrue(outlierDetector.allHealthy());
+
+        outlierDetector.record(SERVICE_ID, instance, false, now);
+
+        Assertions.assertEquals(OutlierDetector.State.EJECTED, outlierDetector.getState(SERVICE_ID, instance, now));
+        Assertions.assertFalse(outlierDetector.allHealthy());
+        Assertions.assertEquals(1, meterRegistry.get("urlshortener_api_gateway_lb_unhealthy_instances").gauge().value());
+        Assertions.assertEquals(1, meterRegistry.get("urlshortener_api_gateway_lb_ejections_total").counter().count());
+    }
+
+    @Test
+    void testRoundRobinServiceIsNotTracked() {
+        final var environment = new MockEnvironment()
+                .withProperty("loadbalancer.services." + SERVICE_ID + ".algorithm", LoadBalancerConfiguration.ROUND_ROBIN);
+        final var roundRobinDetector = new OutlierDetector(environment, new SimpleMeterRegistry());
+        final var now = System.nanoTime();
+
+        for (int i = 0; i < 10; i++) {
+            roundRobinDetector.record(SERVICE_ID, instance, false, now);
+        }
+
+        Assertions.assertEquals(OutlierDetector.State.HEALTHY, roundRobinDetector.getState(SERVICE_ID, instance, now));
+        Assertions.assertTrue(roundRobinDetector.getUnhealthyInstances().isEmpty());
+    }
+
+    @Test
+    void testErrorRateEjectsInstance() {
+        final var now = System.nanoTime();
+
+        for (int i = 0; i < 20; i++) {
+            outlierDetector.record(SERVICE_ID, instance, i % 2 == 0, now);
+        }
+
+        Assertions.assertEquals(OutlierDetector.State.EJECTED, outlierDetector.getState(SERVICE_ID, instance, now));
+    }
+
+    @Test
+    void testProbedInstanceRejoinsAfterSuccessfulProbes() {
+        final var now = ejectedAt();
+        final var afterEjection = now + TimeUnit.MILLISECONDS.toNanos(5000);
+
+        Assertions.assertFalse(outlierDetector.tryProbe(SERVICE_ID, instance, now));
+        Assertions.assertEquals(OutlierDetector.State.PROBING, outlierDetector.getState(SERVICE_ID, instance, afterEjection));
+
+        for (int i = 0; i < 3; i++) {
+            final var probeTime = afterEjection + TimeUnit.SECONDS.toNanos(i);
+            Assertions.assertTrue(outlierDetector.tryProbe(SERVICE_ID, instance, probeTime));
+            // one probe per interval
+            Assertions.assertFalse(outlierDetector.tryProbe(SERVICE_ID, instance, probeTime));
+            outlierDetector.record(SERVICE_ID, instance, true, probeTime);
+        }
+
+        Assertions.assertEquals(OutlierDetector.State.HEALTHY, outlierDetector.getState(SERVICE_ID, instance, afterEjection + TimeUnit.SECONDS.toNanos(3)));
+        Assertions.assertTrue(outlierDetector.allHealthy());
+    }
+
+    @Test
+    void testFailedProbeDoublesEjection() {
+        final var now = ejectedAt();
+        final var afterEjection = now + TimeUnit.MILLISECONDS.toNanos(5000);
+
+        Assertions.assertTrue(outlierDetector.tryProbe(SERVICE_ID, instance, afterEjection));
+        outlierDetector.record(SERVICE_ID, instance, false, afterEjection);
+
+        Assertions.assertEquals(OutlierDetector.State.EJECTED, outlierDetector.getState(SERVICE_ID, instance, afterEjection + TimeUnit.MILLISECONDS.toNanos(9999)));
+        Assertions.assertEquals(OutlierDetector.State.PROBING, outlierDetector.getState(SERVICE_ID, instance, afterEjection + TimeUnit.MILLISECONDS.toNanos(10000)));
+        Assertions.assertEquals(2, meterRegistry.get("urlshortener_api_gateway_lb_ejections_total").counter().count());
+    }
+
+    @Test
+    void testRemovedInstanceIsForgotten() {
+        ejectedAt();
+
+        outlierDetector.retainInstances(SERVICE_ID, List.of());
+
+        Assertions.assertTrue(outlierDetector.allHealthy());
+        Assertions.assertTrue(outlierDetector.getUnhealthyInstances().isEmpty());
+    }
+
+    private long ejectedAt() {
+        final var now = System.nanoTime();
+
+        for (int i = 0; i < 5; i++) {
+            outlierDetector.record(SERVICE_ID, instance, false, now);
+        }
+
+        Assertions.assertEquals(OutlierDetector.State.EJECTED, outlierDetector.getState(SERVICE_ID, instance, now));
+        return now;
+    }
+
+}
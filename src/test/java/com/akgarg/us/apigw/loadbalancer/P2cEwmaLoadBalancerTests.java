@@ -0,0 +1,139 @@
+package com.akgarg.us.apigw.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class P2cEwmaLoadBalancerTests {
+
+    private static final String SERVICE_ID = "urlshortener-service";
+
+    private final ServiceInstance fast1 = new DefaultServiceInstance("fast-1", SERVICE_ID, "10.0.0.1", 8080, false);
+    private final ServiceInstance fast2 = new DefaultServiceInstance("fast-2", SERVICE_ID, "10.0.0.2", 8080, false);
+    private final ServiceInstance slow = new DefaultServiceInstance("slow", SERVICE_ID, "10.0.0.3", 8080, false);
+    private final Map<ServiceInstance, Long> latenciesMs = Map.of(fast1, 10L, fast2, 12L, slow, 200L);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoadBalancerStatsRegistry statsRegistry = new LoadBalancerStatsRegistry(new MockEnvironment(), meterRegistry);
+    private final OutlierDetector outlierDetector = new OutlierDetector(new MockEnvironment(), meterRegistry);
+
+    @Test
+    void testSlowInstanceLosesItsShareOfTraffic() {
+        final var loadBalancer = new P2cEwmaLoadBalancer(supplierProvider(), SERVICE_ID, statsRegistry, outlierDetector);
+        final var picks = new HashMap<ServiceInstance, Integer>();
+        final var requests = 10_000;
+
+        for (int i = 0; i < requests; i++) {
+            final var response = loadBalancer.choose(new DefaultRequest<>()).block(Duration.ofSeconds(1));
+            Assertions.assertNotNull(response);
+
+            // stub instance answering with its configured latency
+            final var instance = response.getServer();
+            final var stats = statsRegistry.getStats(SERVICE_ID, instance);
+            stats.start();
+            stats.finish(TimeUnit.MILLISECONDS.toNanos(latenciesMs.get(instance)));
+            picks.merge(instance, 1, Integer::sum);
+        }
+
+        // round robin would send a third of the requests to the slow instance
+        Assertions.assertTrue(picks.getOrDefault(slow, 0) < requests * 0.05, "slow instance picks: " + picks.get(slow));
+        Assertions.assertEquals(0.2, meterRegistry.get("urlshortener_api_gateway_lb_instance_latency_seconds")
+                .tag("instance", "10.0.0.3:8080")
+                .gauge()
+                .value(), 0.001);
+    }
+
+    @Test
+    void testIdleInstanceCostDecaysTowardsPrior() {
+        final var stats = new InstanceStats(TimeUnit.SECONDS.toNanos(10));
+        final var prior = TimeUnit.MILLISECONDS.toNanos(10);
+        final var now = System.nanoTime();
+        stats.record(TimeUnit.MILLISECONDS.toNanos(200), now);
+
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(200), stats.cost(prior, now), 1);
+        Assertions.assertEquals(prior, stats.cost(prior, now + TimeUnit.SECONDS.toNanos(120)), TimeUnit.MILLISECONDS.toNanos(1));
+
+        stats.start();
+        Assertions.assertEquals(2 * TimeUnit.MILLISECONDS.toNanos(200), stats.cost(prior, now), 1);
+    }
+
+    @Test
+    void testUnsampledInstanceCostsTheMedianLatency() {
+        final var loadBalancer = new P2cEwmaLoadBalancer(supplierProvider(), SERVICE_ID, statsRegistry, outlierDetector);
+        statsRegistry.getStats(SERVICE_ID, fast1).record(TimeUnit.MILLISECONDS.toNanos(10), System.nanoTime());
+        statsRegistry.getStats(SERVICE_ID, slow).record(TimeUnit.MILLISECONDS.toNanos(200), System.nanoTime());
+        statsRegistry.getStats(SERVICE_ID, fast1).start();
+
+        // the new instance has not answered yet, so it is assumed to be as fast as the median instance
+        final var newInstance = statsRegistry.getStats(SERVICE_ID, fast2);
+        final var prior = statsRegistry.getPriorLatencyNanos(SERVICE_ID);
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(200), newInstance.cost(prior), 1);
+
+        for (int i = 0; i < 3; i++) {
+            newInstance.start();
+        }
+
+        // 10 ms with 2 requests in flight against 200 ms with 4 requests in flight
+        Assertions.assertEquals(fast1, loadBalancer.chooseInstance(List.of(fast1, fast2)).getServer());
+    }
+
+    @Test
+    void testEjectedInstanceGetsNoTraffic() {
+        final var loadBalancer = new P2cEwmaLoadBalancer(supplierProvider(), SERVICE_ID, statsRegistry, outlierDetector);
+
+        for (int i = 0; i < 5; i++) {
+            outlierDetector.record(SERVICE_ID, fast1, false);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            final var response = loadBalancer.chooseInstance(List.of(fast1, fast2, slow));
+            Assertions.assertNotEquals(fast1, response.getServer());
+        }
+    }
+
+    @Test
+    void testAllInstancesEjectedFallsBackToAllInstances() {
+        final var loadBalancer = new P2cEwmaLoadBalancer(supplierProvider(), SERVICE_ID, statsRegistry, outlierDetector);
+
+        for (final var instance : List.of(fast1, fast2, slow)) {
+            for (int i = 0; i < 5; i++) {
+                outlierDetector.record(SERVICE_ID, instance, false);
+            }
+        }
+
+        final var response = loadBalancer.chooseInstance(List.of(fast1, fast2, slow));
+        Assertions.assertTrue(response.hasServer());
+    }
+
+    private ObjectProvider<ServiceInstanceListSupplier> supplierProvider() {
+        final ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(List.of(fast1, fast2, slow));
+            }
+        };
+
+        return new StaticListableBeanFactory(Map.of("serviceInstanceListSupplier", supplier))
+                .getBeanProvider(ServiceInstanceListSupplier.class);
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.akgarg.us.apigw.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class HeavyHittersTests {
+
+    @Test
+    void testHotKeysAreReportedAmongManyDistinctKeys() throws InterruptedException {
+        final var heavyHitters = new HeavyHitters(2048, 4, 10);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int thread = 0; thread < 8; thread++) {
+            final var offset = thread * 100_000;
+            executor.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    heavyHitters.add(i % 10 == 0 ? "hot-" + (i / 10 % 3) : "client-" + (offset + i));
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        final var topK = heavyHitters.topK();
+        Assertions.assertEquals(10, topK.size());
+
+        for (int i = 0; i < 3; i++) {
+            final var hotKey = topK.get(i);
+            Assertions.assertTrue(hotKey.key().startsWith("hot-"), "unexpected top key: " + hotKey);
+            // each hot key is added at least 8 * 3333 times, Count-Min never under-estimates
+            Assertions.assertTrue(hotKey.count() >= 26_664, "unexpected count: " + hotKey);
+        }
+    }
+
+    @Test
+    void testKeysWithEqualHashCodeAreCountedApart() {
+        final var heavyHitters = new HeavyHitters(1024, 4, 5);
+        Assertions.assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.add("Aa");
+        }
+        heavyHitters.add("BB");
+
+        Assertions.assertEquals(100, heavyHitters.estimate("Aa"));
+        Assertions.assertEquals(1, heavyHitters.estimate("BB"));
+    }
+
+    @Test
+    void testRaisedCandidatesKeepTheSmallestCandidateEvictable() {
+        final var heavyHitters = new HeavyHitters(1024, 4, 2);
+
+        add(heavyHitters, "a", 10);
+        add(heavyHitters, "b", 5);
+        // raised without the lock, "b" stays the smallest candidate
+        add(heavyHitters, "a", 90);
+        add(heavyHitters, "c", 6);
+
+        final var topK = heavyHitters.topK();
+        Assertions.assertEquals(2, topK.size());
+        Assertions.assertEquals(new HeavyHitters.HeavyHitter("a", 100), topK.get(0));
+        Assertions.assertEquals(new HeavyHitters.HeavyHitter("c", 6), topK.get(1));
+    }
+
+    @Test
+    void testDecayHalvesCountsAndEvictsColdKeys() {
+        final var heavyHitters = new HeavyHitters(1024, 4, 5);
+
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.add("hot");
+        }
+        heavyHitters.add("cold");
+
+        heavyHitters.decay();
+
+        final var topK = heavyHitters.topK();
+        Assertions.assertEquals(1, topK.size());
+        Assertions.assertEquals("hot", topK.getFirst().key());
+        Assertions.assertEquals(50, topK.getFirst().count());
+    }
+
+    private static void add(final HeavyHitters heavyHitters, final String key, final int times) {
+        for (int i = 0; i < times; i++) {
+            heavyHitters.add(key);
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import com.akgarg.us.apigw.config.ApiRoutes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+class InMemoryRateLimiterTests {
+
+    private static final String REQUEST_PATH = "/api/v1/auth/login";
+    private static final int ALLOWED_REQUESTS = 100;
+
+    private InMemoryRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        final var environment = new MockEnvironment()
+                .withProperty("rate-limiter.limits.per-minute." + ApiRoutes.AUTH_API_PATH, String.valueOf(ALLOWED_REQUESTS))
+                .withProperty("rate-limiter.limits.per-minute." + ApiRoutes.STATISTICS_API_PATH, String.valueOf(ALLOWED_REQUESTS))
+                .withProperty("rate-limiter.algorithms." + ApiRoutes.STATISTICS_API_PATH, "sliding-window")
+                .withProperty("rate-limiter.limits.per-minute." + ApiRoutes.PROFILE_API_PATH, String.valueOf(ALLOWED_REQUESTS))
+                .withProperty("rate-limiter.algorithms." + ApiRoutes.PROFILE_API_PATH, "token-bucket")
+                .withProperty("rate-limiter.burst." + ApiRoutes.PROFILE_API_PATH, "5");
+        rateLimiter = new InMemoryRateLimiter(environment);
+    }
+
+    @Test
+    void testRequestsBeyondLimitAreRejected() {
+        for (int i = 0; i < ALLOWED_REQUESTS; i++) {
+            final var decision = rateLimiter.tryAcquire(ApiRoutes.AUTH_API_PATH, REQUEST_PATH, "127.0.0.1");
+            Assertions.assertTrue(decision.allowed());
+            Assertions.assertEquals(ALLOWED_REQUESTS - i - 1L, decision.remaining());
+        }
+
+        final var decision = rateLimiter.tryAcquire(ApiRoutes.AUTH_API_PATH, REQUEST_PATH, "127.0.0.1");
+        Assertions.assertFalse(decision.allowed());
+        Assertions.assertTrue(decision.resetAfterMillis() > 0);
+        Assertions.assertTrue(rateLimiter.tryAcquire(ApiRoutes.AUTH_API_PATH, REQUEST_PATH, "127.0.0.2").allowed());
+    }
+
+    @Test
+    void testLimitIsExactUnderConcurrency() throws InterruptedException {
+        final var threads = 32;
+        final var requestsPerThread = 1_000;
+        final var allowedCount = new AtomicInteger();
+        final var startLatch = new CountDownLatch(1);
+
+        final var executor = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                startLatch.await();
+                for (int j = 0; j < requestsPerThread; j++) {
+                    if (rateLimiter.tryAcquire(ApiRoutes.AUTH_API_PATH, REQUEST_PATH, "127.0.0.1").allowed()) {
+                        allowedCount.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        startLatch.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(ALLOWED_REQUESTS, allowedCount.get());
+    }
+
+    @Test
+    void testSlidingWindowNeverExceedsLimit() {
+        var allowedCount = 0;
+
+        for (int i = 0; i < ALLOWED_REQUESTS * 2; i++) {
+            if (rateLimiter.tryAcquire(ApiRoutes.STATISTICS_API_PATH, "/api/v1/statistics/summary", "user-1").allowed()) {
+                allowedCount++;
+            }
+        }
+
+        Assertions.assertTrue(allowedCount <= ALLOWED_REQUESTS);
+        Assertions.assertTrue(allowedCount > 0);
+    }
+
+    @Test
+    void testTokenBucketAllowsOnlyBurstCapacity() {
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(rateLimiter.tryAcquire(ApiRoutes.PROFILE_API_PATH, "/api/v1/profiles/user-1", "user-1").allowed());
+        }
+
+        final var decision = rateLimiter.tryAcquire(ApiRoutes.PROFILE_API_PATH, "/api/v1/profiles/user-1", "user-1");
+        Assertions.assertFalse(decision.allowed());
+        Assertions.assertTrue(decision.resetAfterMillis() > 0);
+    }
+
+    @Test
+    void testEvictionRacingWithRequestsGrantsNoExtraRequests() throws InterruptedException {
+        final var threads = 8;
+        final var keys = 200;
+        final var allowedCounts = new AtomicIntegerArray(keys);
+        final var startLatch = new CountDownLatch(1);
+        final var stopped = new AtomicBoolean();
+
+        // new token bucket states count as expired until their first request, so they race with the eviction
+        final var evictor = Executors.newSingleThreadExecutor();
+        evictor.submit(() -> {
+            while (!stopped.get()) {
+                rateLimiter.evictExpiredEntries();
+            }
+        });
+
+        final var executor = Executors.newFixedThreadPool(threads);
+        final var start = System.nanoTime();
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                startLatch.await();
+                for (int key = 0; key < keys; key++) {
+                    for (int j = 0; j < 10; j++) {
+                        if (rateLimiter.tryAcquire(ApiRoutes.PROFILE_API_PATH, "/api/v1/profiles/user-" + key, "user-" + key).allowed()) {
+                            allowedCounts.incrementAndGet(key);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        startLatch.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        stopped.set(true);
+        evictor.shutdown();
+
+        // burst of 5 plus one token every 600 ms
+        final var refilled = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) / 600;
+
+        for (int key = 0; key < keys; key++) {
+            Assertions.assertTrue(allowedCounts.get(key) <= 5 + refilled, "allowed for key " + key + ": " + allowedCounts.get(key));
+        }
+    }
+
+    @Test
+    void testEvictionKeepsActiveWindows() {
+        rateLimiter.tryAcquire(ApiRoutes.AUTH_API_PATH, REQUEST_PATH, "127.0.0.1");
+        rateLimiter.evictExpiredEntries();
+        Assertions.assertEquals(1, rateLimiter.size());
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import com.akgarg.us.apigw.config.ApiRoutes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the rate limiter against a stub Redis that leases quota like {@code fixed-window-lease.lua}. With a limit of
+ * 100 requests and the default lease fraction, every lease is 10 requests.
+ */
+class LeasedRedisRateLimiterTests {
+
+    private static final String REQUEST_PATH = "/api/v1/auth/login";
+    private static final String IDENTIFIER = "127.0.0.1";
+    private static final int ALLOWED_REQUESTS = 100;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong usedInRedis = new AtomicLong();
+
+    @Test
+    void testLeaseAnswersRequestsLocally() {
+        final var redis = new StubRedisTemplate(this::lease);
+        final var rateLimiter = rateLimiter(redis);
+
+        for (int i = 0; i < 10; i++) {
+            final var decision = tryAcquire(rateLimiter);
+            Assertions.assertTrue(decision.allowed());
+            Assertions.assertEquals(ALLOWED_REQUESTS - i - 1L, decision.remaining());
+        }
+
+        Assertions.assertEquals(1, redis.getCalls());
+        Assertions.assertEquals(9, meterRegistry.get("urlshortener_api_gateway_rate_limiter_redis_calls_saved_total")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void testDrainedLeaseIsRenewed() {
+        final var redis = new StubRedisTemplate(this::lease);
+        final var rateLimiter = rateLimiter(redis);
+
+        for (int i = 0; i < 25; i++) {
+            Assertions.assertTrue(tryAcquire(rateLimiter).allowed());
+        }
+
+        Assertions.assertEquals(3, redis.getCalls());
+        Assertions.assertEquals(30, usedInRedis.get());
+    }
+
+    @Test
+    void testExhaustedWindowIsRejectedWithoutCallingRedis() {
+        final var redis = new StubRedisTemplate(this::lease);
+        final var rateLimiter = rateLimiter(redis);
+
+        for (int i = 0; i < ALLOWED_REQUESTS; i++) {
+            Assertions.assertTrue(tryAcquire(rateLimiter).allowed());
+        }
+
+        Assertions.assertEquals(10, redis.getCalls());
+
+        for (int i = 0; i < 10; i++) {
+            final var decision = tryAcquire(rateLimiter);
+            Assertions.assertFalse(decision.allowed());
+            Assertions.assertEquals(0, decision.remaining());
+            Assertions.assertTrue(decision.resetAfterMillis() > 0);
+        }
+
+        // one call to learn that the window is exhausted
+        Assertions.assertEquals(11, redis.getCalls());
+    }
+
+    @Test
+    void testRedisErrorFallsBackToUnlimited() {
+        final var redis = new StubRedisTemplate(args -> Mono.error(new IllegalStateException("connection refused")));
+        final var rateLimiter = rateLimiter(redis);
+
+        Assertions.assertEquals(RateLimitDecision.unlimited(), tryAcquire(rateLimiter));
+        Assertions.assertEquals(1, fallbackCount());
+    }
+
+    @Test
+    void testTimedOutLeaseIsNotShared() {
+        // the first lease request never gets an answer
+        final var answered = new AtomicBoolean();
+        final var redis = new StubRedisTemplate(args -> answered.getAndSet(true) ? lease(args) : Mono.never());
+        final var rateLimiter = rateLimiter(redis);
+
+        Assertions.assertEquals(RateLimitDecision.unlimited(), tryAcquire(rateLimiter));
+        Assertions.assertEquals(1, fallbackCount());
+
+        // the hanging lease request was dropped, so the next request leases again instead of waiting for it
+        final var decision = tryAcquire(rateLimiter);
+        Assertions.assertTrue(decision.allowed());
+        Assertions.assertEquals(ALLOWED_REQUESTS, decision.limit());
+        Assertions.assertEquals(2, redis.getCalls());
+    }
+
+    private LeasedRedisRateLimiter rateLimiter(final StubRedisTemplate redis) {
+        final var environment = new MockEnvironment()
+                .withProperty("rate-limiter.limits.per-minute." + ApiRoutes.AUTH_API_PATH, String.valueOf(ALLOWED_REQUESTS))
+                .withProperty("rate-limiter.redis.timeout-ms", "50");
+        return new LeasedRedisRateLimiter(redis, environment, meterRegistry);
+    }
+
+    private static RateLimitDecision tryAcquire(final LeasedRedisRateLimiter rateLimiter) {
+        return rateLimiter.tryAcquire(ApiRoutes.AUTH_API_PATH, REQUEST_PATH, IDENTIFIER).block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Same logic as {@code fixed-window-lease.lua}: grants up to the requested lease size out of the quota left.
+     */
+    private Mono<List<Long>> lease(final List<?> args) {
+        final var limit = Long.parseLong((String) args.get(0));
+        final var leaseSize = Long.parseLong((String) args.get(2));
+        final var granted = Math.max(0, Math.min(leaseSize, limit - usedInRedis.get()));
+        final var used = usedInRedis.addAndGet(granted);
+        return Mono.just(List.of(granted, Math.max(0, limit - used), 60_000L));
+    }
+
+    private double fallbackCount() {
+        return meterRegistry.get("urlshortener_api_gateway_rate_limiter_fallback_total").counter().count();
+    }
+
+}
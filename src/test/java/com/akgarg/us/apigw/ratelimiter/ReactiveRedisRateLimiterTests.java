@@ -0,0 +1,79 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import com.akgarg.us.apigw.config.ApiRoutes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+class ReactiveRedisRateLimiterTests {
+
+    private static final String REQUEST_PATH = "/api/v1/auth/login";
+    private static final int ALLOWED_REQUESTS = 100;
+    private static final List<Long> ALLOWED_REPLY = List.of(1L, 99L, 60_000L);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testScriptReplyIsTurnedIntoDecision() {
+        final var rateLimiter = rateLimiter(new StubRedisTemplate(args -> Mono.just(ALLOWED_REPLY)));
+
+        final var decision = tryAcquire(rateLimiter);
+        Assertions.assertEquals(new RateLimitDecision(true, ALLOWED_REQUESTS, 99, 60_000), decision);
+
+        final var rejected = tryAcquire(rateLimiter(new StubRedisTemplate(args -> Mono.just(List.of(0L, 0L, 5_000L)))));
+        Assertions.assertFalse(rejected.allowed());
+        Assertions.assertEquals(5_000, rejected.resetAfterMillis());
+        Assertions.assertEquals(0, fallbackCount());
+    }
+
+    @Test
+    void testSlowRedisFallsBackToUnlimitedAfterTimeout() {
+        final var rateLimiter = rateLimiter(new StubRedisTemplate(args -> Mono.delay(Duration.ofSeconds(2)).thenReturn(ALLOWED_REPLY)));
+
+        final var start = System.nanoTime();
+        final var decision = tryAcquire(rateLimiter);
+        final var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // the default timeout is 50 ms
+        Assertions.assertEquals(RateLimitDecision.unlimited(), decision);
+        Assertions.assertTrue(elapsed.compareTo(Duration.ofMillis(50)) >= 0, "elapsed: " + elapsed);
+        Assertions.assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0, "elapsed: " + elapsed);
+        Assertions.assertEquals(1, fallbackCount());
+    }
+
+    @Test
+    void testRedisErrorFallsBackToUnlimited() {
+        final var rateLimiter = rateLimiter(new StubRedisTemplate(args -> Mono.error(new IllegalStateException("connection refused"))));
+
+        Assertions.assertEquals(RateLimitDecision.unlimited(), tryAcquire(rateLimiter));
+        Assertions.assertEquals(1, fallbackCount());
+    }
+
+    @Test
+    void testEmptyReplyIsUnlimited() {
+        final var rateLimiter = rateLimiter(new StubRedisTemplate(args -> Mono.empty()));
+
+        Assertions.assertEquals(RateLimitDecision.unlimited(), tryAcquire(rateLimiter));
+        Assertions.assertEquals(0, fallbackCount());
+    }
+
+    private ReactiveRedisRateLimiter rateLimiter(final StubRedisTemplate redis) {
+        final var environment = new MockEnvironment()
+                .withProperty("rate-limiter.limits.per-minute." + ApiRoutes.AUTH_API_PATH, String.valueOf(ALLOWED_REQUESTS));
+        return new ReactiveRedisRateLimiter(redis, environment, meterRegistry);
+    }
+
+    private static RateLimitDecision tryAcquire(final ReactiveRedisRateLimiter rateLimiter) {
+        return rateLimiter.tryAcquire(ApiRoutes.AUTH_API_PATH, REQUEST_PATH, "127.0.0.1").block(Duration.ofSeconds(5));
+    }
+
+    private double fallbackCount() {
+        return meterRegistry.get("urlshortener_api_gateway_rate_limiter_fallback_total").counter().count();
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.akgarg.us.apigw.ratelimiter;
+
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Redis template answering every script call with the given function of the script arguments instead of calling
+ * Redis. The connection factory is never started.
+ */
+final class StubRedisTemplate extends ReactiveStringRedisTemplate {
+
+    private final Function<List<?>, Mono<List<Long>>> reply;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    StubRedisTemplate(final Function<List<?>, Mono<List<Long>>> reply) {
+        super(new LettuceConnectionFactory());
+        this.reply = reply;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> execute(final RedisScript<T> script, final List<String> keys, final List<?> args) {
+        calls.incrementAndGet();
+        return (Flux<T>) (Flux<?>) reply.apply(args).flux();
+    }
+
+    int getCalls() {
+        return calls.get();
+    }
+
+}
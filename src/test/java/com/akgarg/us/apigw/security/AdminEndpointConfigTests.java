@@ -0,0 +1,39 @@
+package com.akgarg.us.apigw.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+class AdminEndpointConfigTests {
+
+    @Test
+    void testAdminEndpointsAreMatchedByMethodAndPath() {
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/api/v1/subscriptions", HttpMethod.POST));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/api/v1/subscriptions/packs", HttpMethod.POST));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/api/v1/subscriptions/packs/pack-1", HttpMethod.PATCH));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/api/v1/subscriptions/packs/pack-1", HttpMethod.DELETE));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/admin/management/shortcodes/add", HttpMethod.POST));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/admin/management/redirectcache", HttpMethod.DELETE));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/admin/management/heavyhitters", HttpMethod.GET));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/admin/management/heavyhitters/client_ip", HttpMethod.GET));
+        Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint("/admin/management/outliers", HttpMethod.GET));
+    }
+
+    @Test
+    void testNonAdminRequestsAreNotMatched() {
+        Assertions.assertFalse(AdminEndpointConfig.isAdminEndpoint("/api/v1/subscriptions/packs", HttpMethod.GET));
+        Assertions.assertFalse(AdminEndpointConfig.isAdminEndpoint("/abc123", HttpMethod.GET));
+        Assertions.assertFalse(AdminEndpointConfig.isAdminEndpoint("/admin/management/shortcodes", HttpMethod.GET));
+        Assertions.assertFalse(AdminEndpointConfig.isAdminEndpoint("/admin/management/redirectcache", HttpMethod.GET));
+        Assertions.assertFalse(AdminEndpointConfig.isAdminEndpoint("/api/v1/subscriptions", HttpMethod.PATCH));
+        Assertions.assertFalse(AdminEndpointConfig.isAdminEndpoint("/api/v1/subscriptions/active", HttpMethod.POST));
+    }
+
+    @Test
+    void testEveryEndpointIsIndexed() {
+        for (final var endpoint : AdminEndpointConfig.getAdminOnlyEndpoints()) {
+            Assertions.assertTrue(AdminEndpointConfig.isAdminEndpoint(endpoint.path().replace("/**", ""), endpoint.httpMethod()));
+        }
+    }
+
+}
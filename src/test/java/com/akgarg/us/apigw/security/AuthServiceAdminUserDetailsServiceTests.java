@@ -0,0 +1,137 @@
+package com.akgarg.us.apigw.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the service against a stub auth service with a refresh after 10 and an expiry after 30 seconds of a manual
+ * clock.
+ */
+class AuthServiceAdminUserDetailsServiceTests {
+
+    private static final String USER_ID = "user-1";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger authServiceCalls = new AtomicInteger();
+    private final AtomicReference<HttpStatus> authServiceStatus = new AtomicReference<>(HttpStatus.OK);
+    private final AtomicReference<Boolean> admin = new AtomicReference<>(true);
+    private final AuthServiceAdminUserDetailsService service = new AuthServiceAdminUserDetailsService(
+            WebClient.builder().exchangeFunction(request -> {
+                authServiceCalls.incrementAndGet();
+                return Mono.just(ClientResponse.create(authServiceStatus.get())
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body("{\"success\": " + admin.get() + "}")
+                        .build());
+            }),
+            new MockEnvironment(),
+            new SimpleMeterRegistry(),
+            nanos::get
+    );
+
+    @Test
+    void testVerdictIsCached() {
+        for (int i = 0; i < 3; i++) {
+            final var user = findByUsername();
+            Assertions.assertEquals(USER_ID, user.getUsername());
+            Assertions.assertTrue(user.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+        }
+
+        Assertions.assertEquals(1, authServiceCalls.get());
+    }
+
+    @Test
+    void testNonAdminVerdictIsCached() {
+        admin.set(false);
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThrows(UsernameNotFoundException.class, this::findByUsername);
+        }
+
+        Assertions.assertEquals(1, authServiceCalls.get());
+    }
+
+    @Test
+    void testStaleVerdictIsRefreshedInTheBackground() throws InterruptedException {
+        findByUsername();
+        admin.set(false);
+        advance(11);
+
+        // the stale verdict is served once while it is refreshed
+        Assertions.assertNotNull(findByUsername());
+        awaitAuthServiceCalls(2);
+        Assertions.assertThrows(UsernameNotFoundException.class, this::findByUsername);
+    }
+
+    @Test
+    void testExpiredVerdictIsNotServed() {
+        findByUsername();
+        admin.set(false);
+        advance(31);
+
+        Assertions.assertThrows(UsernameNotFoundException.class, this::findByUsername);
+        Assertions.assertEquals(2, authServiceCalls.get());
+    }
+
+    @Test
+    void testAuthServiceErrorIsPropagatedAndNotCached() {
+        authServiceStatus.set(HttpStatus.INTERNAL_SERVER_ERROR);
+        Assertions.assertThrows(UsernameNotFoundException.class, this::findByUsername);
+
+        authServiceStatus.set(HttpStatus.OK);
+        Assertions.assertNotNull(findByUsername());
+        Assertions.assertEquals(2, authServiceCalls.get());
+    }
+
+    @Test
+    void testFailedRefreshKeepsVerdictUntilExpiry() throws InterruptedException {
+        findByUsername();
+        authServiceStatus.set(HttpStatus.SERVICE_UNAVAILABLE);
+        advance(11);
+
+        Assertions.assertNotNull(findByUsername());
+        awaitAuthServiceCalls(2);
+        Assertions.assertNotNull(findByUsername());
+
+        advance(20);
+        Assertions.assertThrows(UsernameNotFoundException.class, this::findByUsername);
+    }
+
+    private UserDetails findByUsername() {
+        return service.findByUsername(USER_ID).block(Duration.ofSeconds(5));
+    }
+
+    private void advance(final long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    /**
+     * Background refreshes run on the common pool, so wait for them to reach the auth service and complete.
+     */
+    private void awaitAuthServiceCalls(final int calls) throws InterruptedException {
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (authServiceCalls.get() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assertions.assertEquals(calls, authServiceCalls.get());
+        Thread.sleep(50);
+    }
+
+}
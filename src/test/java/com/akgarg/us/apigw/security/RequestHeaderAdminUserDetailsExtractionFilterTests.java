@@ -0,0 +1,124 @@
+package com.akgarg.us.apigw.security;
+
+import com.akgarg.client.authclient.AuthClient;
+import com.akgarg.us.apigw.auth.AuthServiceEndpointRegistry;
+import com.akgarg.us.apigw.auth.AuthTokenValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpCookie;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the filter with the dev user details service and an auth client accepting only {@link #VALID_TOKEN}.
+ */
+class RequestHeaderAdminUserDetailsExtractionFilterTests {
+
+    private static final String ADMIN_PATH = "/admin/management/redirectcache";
+    private static final String VALID_TOKEN = "valid-token";
+
+    private final AtomicInteger authClientCalls = new AtomicInteger();
+    private final AtomicBoolean chainCalled = new AtomicBoolean();
+    private final AtomicReference<Authentication> authentication = new AtomicReference<>();
+    private final AuthClient authClient = request -> {
+        authClientCalls.incrementAndGet();
+        return VALID_TOKEN.equals(request.token());
+    };
+    private final RequestHeaderAdminUserDetailsExtractionFilter filter = new RequestHeaderAdminUserDetailsExtractionFilter(
+            new InMemoryUserDetailsService(),
+            new AuthTokenValidator(authClient, Schedulers.immediate(), new MockEnvironment(), new SimpleMeterRegistry()),
+            new AuthServiceEndpointRegistry(new NoInstancesDiscoveryClient(), new MockEnvironment(), new SimpleMeterRegistry())
+    );
+    private final WebFilterChain chain = exchange -> {
+        chainCalled.set(true);
+        return ReactiveSecurityContextHolder.getContext()
+                .doOnNext(context -> authentication.set(context.getAuthentication()))
+                .then();
+    };
+
+    @Test
+    void testAdminWithValidTokenIsAuthenticated() {
+        filter(MockServerHttpRequest.delete(ADMIN_PATH)
+                .header("X-USER-ID", "admin")
+                .cookie(new HttpCookie("auth_token", VALID_TOKEN))
+                .build());
+
+        Assertions.assertNotNull(authentication.get());
+        Assertions.assertTrue(authentication.get().getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+        Assertions.assertEquals(1, authClientCalls.get());
+    }
+
+    @Test
+    void testSpoofedUserIdWithoutTokenIsNotAuthenticated() {
+        filter(MockServerHttpRequest.delete(ADMIN_PATH)
+                .header("X-USER-ID", "admin")
+                .build());
+
+        Assertions.assertTrue(chainCalled.get());
+        Assertions.assertNull(authentication.get());
+        Assertions.assertEquals(0, authClientCalls.get());
+    }
+
+    @Test
+    void testSpoofedUserIdWithInvalidTokenIsNotAuthenticated() {
+        filter(MockServerHttpRequest.delete(ADMIN_PATH)
+                .header("X-USER-ID", "admin")
+                .cookie(new HttpCookie("auth_token", "stolen-token"))
+                .build());
+
+        Assertions.assertTrue(chainCalled.get());
+        Assertions.assertNull(authentication.get());
+        Assertions.assertEquals(1, authClientCalls.get());
+    }
+
+    @Test
+    void testNonAdminEndpointIsNotValidated() {
+        filter(MockServerHttpRequest.get(ADMIN_PATH)
+                .header("X-USER-ID", "admin")
+                .cookie(new HttpCookie("auth_token", VALID_TOKEN))
+                .build());
+
+        Assertions.assertTrue(chainCalled.get());
+        Assertions.assertNull(authentication.get());
+        Assertions.assertEquals(0, authClientCalls.get());
+    }
+
+    private void filter(final MockServerHttpRequest request) {
+        filter.filter(MockServerWebExchange.from(request), chain).block(Duration.ofSeconds(5));
+    }
+
+    private static final class NoInstancesDiscoveryClient implements DiscoveryClient {
+
+        @Override
+        public String description() {
+            return "no instances";
+        }
+
+        @Override
+        public List<ServiceInstance> getInstances(final String serviceId) {
+            return List.of();
+        }
+
+        @Override
+        public List<String> getServices() {
+            return List.of();
+        }
+
+    }
+
+}
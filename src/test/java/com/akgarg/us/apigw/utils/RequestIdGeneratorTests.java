@@ -0,0 +1,43 @@
+package com.akgarg.us.apigw.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class RequestIdGeneratorTests {
+
+    @Test
+    void testRequestIdsAreUniqueAcrossThreads() throws InterruptedException {
+        final Set<String> requestIds = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    requestIds.add(RequestIdGenerator.generate());
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(400_000, requestIds.size());
+    }
+
+    @Test
+    void testRequestIdsAreOrderedByTime() {
+        final var earlier = RequestIdGenerator.generate(1_700_000_000_000L);
+        final var later = RequestIdGenerator.generate(1_700_000_000_001L);
+
+        Assertions.assertEquals(RequestIdGenerator.REQUEST_ID_LENGTH, earlier.length());
+        Assertions.assertTrue(earlier.matches("[0-9A-HJKMNP-TV-Z]{26}"), earlier);
+        Assertions.assertTrue(earlier.compareTo(later) < 0);
+        Assertions.assertEquals(earlier.substring(0, 10), RequestIdGenerator.generate(1_700_000_000_000L).substring(0, 10));
+    }
+
+}